@@ -1,20 +1,115 @@
+-- Schema for the prod profile (ddl-auto: validate). Every statement is idempotent, so the script
+-- both creates a fresh database and upgrades an existing one; run it before deploying a new version.
+
 -- Create extensions
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
+-- Create tables
+CREATE TABLE IF NOT EXISTS users (
+    id bigserial PRIMARY KEY,
+    registered_at timestamp(6) NOT NULL,
+    address varchar(255),
+    email varchar(255) NOT NULL UNIQUE,
+    name varchar(255) NOT NULL,
+    phone varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id bigserial PRIMARY KEY,
+    active boolean NOT NULL,
+    price numeric(10,2) NOT NULL,
+    rating float(53) NOT NULL,
+    rating_count integer NOT NULL,
+    stock_quantity integer NOT NULL,
+    stock_sharded boolean NOT NULL DEFAULT false,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    description varchar(1000),
+    category varchar(255) NOT NULL CHECK (category IN ('ELECTRONICS','CLOTHING','BOOKS','SPORTS','HOME')),
+    manufacturer varchar(255),
+    name varchar(255) NOT NULL,
+    sku varchar(255) UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id bigserial PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users,
+    discount_amount numeric(10,2),
+    final_amount numeric(10,2) NOT NULL,
+    total_amount numeric(10,2) NOT NULL,
+    stock_reconciled boolean NOT NULL DEFAULT true,
+    delivery_date timestamp(6),
+    order_date timestamp(6) NOT NULL,
+    delivery_method varchar(255),
+    failure_reason varchar(255),
+    payment_method varchar(255),
+    shipping_address varchar(255),
+    status varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id bigserial PRIMARY KEY,
+    order_id bigint NOT NULL REFERENCES orders,
+    product_id bigint NOT NULL REFERENCES products,
+    quantity integer NOT NULL,
+    subtotal numeric(10,2) NOT NULL,
+    unit_price numeric(10,2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS reviews (
+    id bigserial PRIMARY KEY,
+    product_id bigint NOT NULL REFERENCES products,
+    user_id bigint NOT NULL REFERENCES users,
+    rating integer NOT NULL,
+    verified_purchase boolean NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    comment varchar(2000)
+);
+
+CREATE TABLE IF NOT EXISTS user_cart_items (
+    user_id bigint NOT NULL REFERENCES users,
+    product_id bigint,
+    quantity integer
+);
+
+CREATE TABLE IF NOT EXISTS user_wishlist (
+    user_id bigint NOT NULL REFERENCES users,
+    product_id bigint NOT NULL REFERENCES products
+);
+
+-- Stock of hot products split across rows, see ShardedStock
+CREATE TABLE IF NOT EXISTS inventory_buckets (
+    product_id bigint NOT NULL REFERENCES products,
+    bucket integer NOT NULL,
+    quantity integer NOT NULL,
+    PRIMARY KEY (bucket, product_id)
+);
+
+-- Upgrade databases created before these columns existed; the defaults fill the existing rows
+ALTER TABLE products ADD COLUMN IF NOT EXISTS stock_sharded boolean NOT NULL DEFAULT false;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS stock_reconciled boolean NOT NULL DEFAULT true;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS failure_reason varchar(255);
+
+-- The order pipeline added ACCEPTED, RESERVED and REJECTED
+ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check;
+ALTER TABLE orders ADD CONSTRAINT orders_status_check CHECK (status IN
+    ('ACCEPTED','RESERVED','REJECTED','PROCESSING','CONFIRMED','SHIPPED','DELIVERED','CANCELLED'));
+
 -- Create indexes for performance
 CREATE INDEX IF NOT EXISTS idx_products_category ON products(category);
 CREATE INDEX IF NOT EXISTS idx_products_price ON products(price);
 CREATE INDEX IF NOT EXISTS idx_products_rating ON products(rating DESC);
+CREATE INDEX IF NOT EXISTS idx_products_updated_at ON products(updated_at);
 CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
 CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id);
 
 -- Insert sample data
-INSERT INTO products (name, description, price, category, manufacturer, sku, stock_quantity, rating, rating_count, active, created_at, updated_at)
+INSERT INTO products (name, description, price, category, manufacturer, sku, stock_quantity, stock_sharded, rating, rating_count, active, created_at, updated_at)
 VALUES
-    ('iPhone 15 Pro', 'Latest Apple smartphone', 999.99, 'ELECTRONICS', 'Apple', 'IPHONE15-PRO', 50, 4.8, 1200, true, NOW(), NOW()),
-    ('MacBook Air M2', 'Apple laptop with M2 chip', 1199.99, 'ELECTRONICS', 'Apple', 'MBA-M2', 30, 4.7, 850, true, NOW(), NOW()),
-    ('Nike Air Max', 'Running shoes', 129.99, 'SPORTS', 'Nike', 'NIKE-AIRMAX', 200, 4.5, 2300, true, NOW(), NOW()),
-    ('Design Patterns Book', 'Gang of Four design patterns', 49.99, 'BOOKS', 'Addison-Wesley', 'DP-BOOK', 100, 4.9, 1500, true, NOW(), NOW()),
-    ('Coffee Maker', 'Automatic coffee machine', 89.99, 'HOME', 'Philips', 'PHILIPS-CM', 75, 4.3, 420, true, NOW(), NOW())
-ON CONFLICT (sku) DO NOTHING;
\ No newline at end of file
+    ('iPhone 15 Pro', 'Latest Apple smartphone', 999.99, 'ELECTRONICS', 'Apple', 'IPHONE15-PRO', 50, false, 4.8, 1200, true, NOW(), NOW()),
+    ('MacBook Air M2', 'Apple laptop with M2 chip', 1199.99, 'ELECTRONICS', 'Apple', 'MBA-M2', 30, false, 4.7, 850, true, NOW(), NOW()),
+    ('Nike Air Max', 'Running shoes', 129.99, 'SPORTS', 'Nike', 'NIKE-AIRMAX', 200, false, 4.5, 2300, true, NOW(), NOW()),
+    ('Design Patterns Book', 'Gang of Four design patterns', 49.99, 'BOOKS', 'Addison-Wesley', 'DP-BOOK', 100, false, 4.9, 1500, true, NOW(), NOW()),
+    ('Coffee Maker', 'Automatic coffee machine', 89.99, 'HOME', 'Philips', 'PHILIPS-CM', 75, false, 4.3, 420, true, NOW(), NOW())
+ON CONFLICT (sku) DO NOTHING;
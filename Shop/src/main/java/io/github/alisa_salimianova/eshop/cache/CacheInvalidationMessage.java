@@ -0,0 +1,59 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+/**
+ * Сообщение об инвалидации записи near-cache на других узлах.
+ * Ключ передаётся вместе с типом, чтобы {@code Long 1} не превратился в {@code "1"}.
+ * Ключ {@code null} означает очистку всего кэша.
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, Object key) {
+
+    private static final String SEPARATOR = "|";
+    private static final String CLEAR = "*";
+    private static final String LONG_KEY = "L";
+    private static final String STRING_KEY = "S";
+
+    public static CacheInvalidationMessage evict(String origin, String cacheName, Object key) {
+        return new CacheInvalidationMessage(origin, cacheName, key);
+    }
+
+    public static CacheInvalidationMessage clear(String origin, String cacheName) {
+        return new CacheInvalidationMessage(origin, cacheName, null);
+    }
+
+    public boolean isClear() {
+        return key == null;
+    }
+
+    public String encode() {
+        return origin + SEPARATOR + cacheName + SEPARATOR + encodeKey();
+    }
+
+    public static CacheInvalidationMessage decode(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cache invalidation message: " + payload);
+        }
+        return new CacheInvalidationMessage(parts[0], parts[1], decodeKey(parts[2]));
+    }
+
+    private String encodeKey() {
+        if (key instanceof Long) {
+            return LONG_KEY + key;
+        }
+        if (key instanceof String) {
+            return STRING_KEY + key;
+        }
+        // Keys of other types cannot be reconstructed reliably, so the whole cache is dropped
+        return CLEAR;
+    }
+
+    private static Object decodeKey(String encoded) {
+        if (encoded.startsWith(LONG_KEY)) {
+            return Long.valueOf(encoded.substring(1));
+        }
+        if (encoded.startsWith(STRING_KEY)) {
+            return encoded.substring(1);
+        }
+        return null;
+    }
+}
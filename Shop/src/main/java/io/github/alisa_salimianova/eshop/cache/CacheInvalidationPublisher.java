@@ -0,0 +1,8 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+/**
+ * Канал рассылки инвалидаций near-cache между узлами.
+ */
+public interface CacheInvalidationPublisher {
+    void publish(CacheInvalidationMessage message);
+}
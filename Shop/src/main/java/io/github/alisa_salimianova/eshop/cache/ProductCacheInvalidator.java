@@ -0,0 +1,121 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogListener;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Точечная инвалидация кэша "products".
+ * Запись товара сбрасывает только его собственный ключ и те списки, в которые он входил
+ * до изменения или входит после него, вместо полной очистки кэша.
+ * Загрузчики кэша читают витрину, поэтому затронутые ключи сбрасываются ещё раз после публикации
+ * каждого снимка — и для локальных записей, и для изменений, найденных синхронизацией с базой.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheInvalidator implements CatalogListener {
+
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String ALL_ACTIVE_KEY = "all-active";
+
+    // Past this many keys one clear is cheaper than a near-cache broadcast per key
+    static final int BULK_CLEAR_THRESHOLD = 100;
+
+    private final CacheManager cacheManager;
+    private final SingleFlight productLoads;
+
+    public void productCreated(boolean active) {
+        evict(dependentKeys(null, false, active));
+    }
+
+    public void productChanged(Long id, boolean wasActive, boolean isActive) {
+        evict(dependentKeys(id, wasActive, isActive));
+    }
+
+    /**
+     * Одна инвалидация на массовую операцию: до порога сбрасываются ключи товаров и активный список,
+     * дальше — весь кэш целиком.
+     */
+    public void productsChanged(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (ids.size() > BULK_CLEAR_THRESHOLD) {
+            log.debug("Clearing product cache after a bulk change of {} products", ids.size());
+            cache().clear();
+            productLoads.forgetAll();
+            return;
+        }
+        Set<Object> keys = new LinkedHashSet<>(ids);
+        keys.add(ALL_ACTIVE_KEY);
+        evict(keys);
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        // Entries cached before the load were read from the database, not from an older snapshot
+    }
+
+    /**
+     * Вызывается первым из подписчиков: кэш сериализованных ответов пересобирается уже
+     * из свежих записей, а не из тех, что были закэшированы по прежнему снимку.
+     */
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        // Runs after commit, where a transaction-aware evict would wait for a commit that already happened
+        Cache cache = cache();
+        if (changes.size() > BULK_CLEAR_THRESHOLD) {
+            cache.invalidate();
+            productLoads.forgetAll();
+            return;
+        }
+        changes.forEach(change -> {
+            cache.evictIfPresent(change.getId());
+            productLoads.forget(change.getId());
+        });
+        cache.evictIfPresent(ALL_ACTIVE_KEY);
+        productLoads.forget(ALL_ACTIVE_KEY);
+    }
+
+    static Set<Object> dependentKeys(Long id, boolean wasActive, boolean isActive) {
+        Set<Object> keys = new LinkedHashSet<>();
+        if (id != null) {
+            keys.add(id);
+        }
+        // The active list contains a product whenever it is active, so membership on either side matters
+        if (wasActive || isActive) {
+            keys.add(ALL_ACTIVE_KEY);
+        }
+        return keys;
+    }
+
+    private void evict(Set<Object> keys) {
+        Cache cache = cache();
+        log.debug("Evicting product cache keys: {}", keys);
+        keys.forEach(key -> {
+            cache.evict(key);
+            // A load that started before the change must not be joined by the next miss
+            productLoads.forget(key);
+        });
+    }
+
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(PRODUCTS_CACHE),
+                "Cache '" + PRODUCTS_CACHE + "' is not configured");
+    }
+}
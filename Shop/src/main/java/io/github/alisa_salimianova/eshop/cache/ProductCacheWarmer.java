@@ -0,0 +1,178 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.catalog.ProductCatalog;
+import io.github.alisa_salimianova.eshop.config.AppCacheProperties;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.github.alisa_salimianova.eshop.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Прогрев и упреждающее обновление кэша "products".
+ * Прогрев идёт после загрузки витрины, но до того, как Spring Boot переведёт узел в ACCEPTING_TRAFFIC,
+ * поэтому readiness-проба зеленеет уже на тёплом кэше. Популярность товара — число его оценок.
+ */
+@Component
+@Slf4j
+public class ProductCacheWarmer {
+
+    private final ProductService productService;
+    private final ProductCatalog productCatalog;
+    private final SerializedResponseCache serializedResponseCache;
+    private final CacheManager cacheManager;
+    private final AppCacheProperties properties;
+    private final TaskExecutor taskExecutor;
+
+    public ProductCacheWarmer(ProductService productService, ProductCatalog productCatalog,
+                              SerializedResponseCache serializedResponseCache, CacheManager cacheManager,
+                              AppCacheProperties properties,
+                              @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.productService = productService;
+        this.productCatalog = productCatalog;
+        this.serializedResponseCache = serializedResponseCache;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp() {
+        AppCacheProperties.WarmUp settings = properties.getWarmUp();
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<Long> hottest = hottestProductIds(settings.getHotProducts());
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        batches.add(CompletableFuture.runAsync(this::warmActiveProducts, taskExecutor));
+        for (int from = 0; from < hottest.size(); from += settings.getBatchSize()) {
+            List<Long> batch = hottest.subList(from, Math.min(from + settings.getBatchSize(), hottest.size()));
+            batches.add(CompletableFuture.runAsync(() -> batch.forEach(this::warmProduct), taskExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+                    .get(settings.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Product cache warmed with {} products and the active list in {} ms",
+                    hottest.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (TimeoutException e) {
+            // A slow database must not keep the node out of rotation forever
+            log.warn("Product cache warm-up did not finish in {}, accepting traffic anyway", settings.getTimeout());
+        } catch (ExecutionException e) {
+            log.warn("Product cache warm-up failed, accepting traffic with a cold cache", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Перечитывает горячие записи, близкие к истечению TTL, через {@code @CachePut}:
+     * читатели продолжают получать текущее значение и не ждут перезагрузки.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.refresh-ahead.interval-ms:30000}",
+            initialDelayString = "${app.cache.refresh-ahead.interval-ms:30000}")
+    @SuppressWarnings("unchecked")
+    public void refreshAhead() {
+        AppCacheProperties.RefreshAhead settings = properties.getRefreshAhead();
+        Cache cache = cacheManager.getCache(ProductCacheInvalidator.PRODUCTS_CACHE);
+        if (!settings.isEnabled() || cache == null
+                || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return;
+        }
+        Policy<Object, Object> policy = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).policy();
+        Optional<Policy.FixedExpiration<Object, Object>> expiration = policy.expireAfterWrite();
+        Optional<Policy.Eviction<Object, Object>> eviction = policy.eviction();
+        if (expiration.isEmpty() || eviction.isEmpty()) {
+            return;
+        }
+
+        long dueAfterNanos = expiration.get().getExpiresAfter().minus(settings.getWindow()).toNanos();
+        List<Object> due = new ArrayList<>();
+        // Only the most used entries are kept alive; cold ones are left to expire
+        for (Object key : eviction.get().hottest(settings.getHottestEntries()).keySet()) {
+            OptionalLong age = expiration.get().ageOf(key, TimeUnit.NANOSECONDS);
+            if (age.isPresent() && age.getAsLong() >= dueAfterNanos) {
+                due.add(key);
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("Refreshing {} product cache entries ahead of expiry", due.size());
+            due.forEach(key -> taskExecutor.execute(() -> refresh(key)));
+        }
+    }
+
+    private void refresh(Object key) {
+        try {
+            if (key instanceof Long id) {
+                productService.refreshProduct(id);
+            } else if (ProductCacheInvalidator.ALL_ACTIVE_KEY.equals(key)) {
+                productService.refreshAllActiveProducts();
+            }
+        } catch (ResourceNotFoundException e) {
+            log.debug("Product {} is gone, leaving its cache entry to expire", key);
+        } catch (RuntimeException e) {
+            log.warn("Refresh-ahead of product cache key {} failed", key, e);
+        }
+    }
+
+    private List<Long> hottestProductIds(int limit) {
+        Optional<CatalogSnapshot> snapshot = productCatalog.current();
+        if (snapshot.isEmpty()) {
+            return List.of();
+        }
+        CatalogSnapshot current = snapshot.get();
+        return IntStream.range(0, current.size())
+                .boxed()
+                .sorted(Comparator.comparingInt(current::ratingCountAt).reversed())
+                .limit(limit)
+                .map(current::idAt)
+                .toList();
+    }
+
+    // The version is read before the data, so a concurrent write can only leave an entry that looks stale
+    private void warmActiveProducts() {
+        Optional<String> etag = productService.getCatalogETag();
+        List<ProductResponse> products = productService.getAllActiveProducts();
+        if (serializedResponseCache.isEnabled()) {
+            etag.ifPresent(version -> serializedResponseCache.activeProducts(version, () -> products));
+        }
+    }
+
+    private void warmProduct(Long id) {
+        try {
+            Optional<String> etag = productService.getProductETag(id);
+            ProductResponse product = productService.getProductById(id);
+            if (serializedResponseCache.isEnabled()) {
+                etag.ifPresent(version -> serializedResponseCache.product(id, version, () -> product));
+            }
+        } catch (ResourceNotFoundException e) {
+            // Removed between the snapshot read and the load
+            log.debug("Skipping warm-up of missing product {}", id);
+        }
+    }
+}
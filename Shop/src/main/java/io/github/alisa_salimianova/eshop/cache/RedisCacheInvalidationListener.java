@@ -0,0 +1,25 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCacheInvalidationListener implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            cacheManager.handleInvalidation(CacheInvalidationMessage.decode(payload));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring cache invalidation message: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCacheInvalidationPublisher implements CacheInvalidationPublisher {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        log.debug("Publishing cache invalidation: {}", message);
+        redisTemplate.convertAndSend(channel, message.encode());
+    }
+}
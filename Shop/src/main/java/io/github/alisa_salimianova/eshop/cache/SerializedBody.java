@@ -0,0 +1,50 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Готовое JSON-представление поля {@code data} ответа и версия, из которой оно получено.
+ * Сжатая копия — «сырой» deflate, закрытый SYNC_FLUSH без финального блока,
+ * чтобы её можно было вклеить в gzip-поток между блоками конверта; к ней хранится CRC32 несжатых байтов.
+ */
+public record SerializedBody(String version, byte[] json, byte[] deflated, long crc) {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public static SerializedBody of(String version, byte[] json, int gzipMinBytes) {
+        if (json.length < gzipMinBytes) {
+            return new SerializedBody(version, json, null, 0);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        return new SerializedBody(version, json, deflate(json), crc.getValue());
+    }
+
+    public boolean hasGzip() {
+        return deflated != null;
+    }
+
+    public int weight() {
+        return json.length + (deflated != null ? deflated.length : 0);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        // Compressed once per change and served many times, so the slowest level pays off
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, length);
+            } while (length == buffer.length);
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.CRC32;
+
+/**
+ * Успешный {@link ApiResponseDto}, собранный из готовых байтов: постоянный префикс,
+ * закэшированное поле {@code data} и суффикс с временем ответа.
+ * В gzip-варианте префикс и суффикс идут несжатыми deflate-блоками, а {@code data} — заранее сжатым,
+ * поэтому на запрос не тратится ни сериализация, ни сжатие.
+ */
+public final class SerializedEnvelope {
+
+    private static final byte[] PREFIX = ("{\"success\":true,\"message\":\"" + ApiResponseDto.SUCCESS_MESSAGE
+            + "\",\"data\":").getBytes(StandardCharsets.UTF_8);
+
+    // Magic, deflate, no flags, no mtime, no extra flags, unknown OS
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int STORED_BLOCK_HEADER = 5;
+    private static final int GZIP_TRAILER = 8;
+    private static final long PREFIX_CRC = crc(PREFIX);
+
+    private final SerializedBody body;
+    private final byte[] suffix;
+    private final boolean gzip;
+
+    private SerializedEnvelope(SerializedBody body, byte[] suffix, boolean gzip) {
+        this.body = body;
+        this.suffix = suffix;
+        this.gzip = gzip;
+    }
+
+    /**
+     * @param gzip отдать сжатый вариант; игнорируется, если у тела нет сжатой копии
+     */
+    public static SerializedEnvelope success(SerializedBody body, boolean gzip) {
+        // Same format Jackson uses for LocalDateTime, so the bytes match a serialized ApiResponseDto
+        String timestamp = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now());
+        byte[] suffix = (",\"timestamp\":\"" + timestamp + "\"}").getBytes(StandardCharsets.UTF_8);
+        return new SerializedEnvelope(body, suffix, gzip && body.hasGzip());
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public long contentLength() {
+        if (!gzip) {
+            return plainLength();
+        }
+        return GZIP_HEADER.length + STORED_BLOCK_HEADER + PREFIX.length + body.deflated().length
+                + STORED_BLOCK_HEADER + suffix.length + GZIP_TRAILER;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (!gzip) {
+            out.write(PREFIX);
+            out.write(body.json());
+            out.write(suffix);
+            return;
+        }
+        out.write(GZIP_HEADER);
+        writeStoredBlock(out, PREFIX, false);
+        out.write(body.deflated());
+        writeStoredBlock(out, suffix, true);
+
+        // The body's CRC was computed with its compressed copy; only the short suffix is hashed here
+        long crc = combineCrc(combineCrc(PREFIX_CRC, body.crc(), body.json().length), crc(suffix), suffix.length);
+        writeIntLE(out, (int) crc);
+        writeIntLE(out, (int) plainLength());
+    }
+
+    private long plainLength() {
+        return (long) PREFIX.length + body.json().length + suffix.length;
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * CRC32 склейки двух последовательностей по их CRC и длине второй (crc32_combine из zlib):
+     * дописывание {@code length2} нулевых байтов к первой — умножение на матрицу над GF(2).
+     */
+    static long combineCrc(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        // The operator for one zero bit: the reflected polynomial, then a shift
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // Squaring from four zero bits: the first square inside the loop is one zero byte
+        long crc = crc1;
+        long length = length2;
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(even, crc);
+            }
+            length >>>= 1;
+            if (length == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((length & 1) != 0) {
+                crc = gf2MatrixTimes(odd, crc);
+            }
+            length >>>= 1;
+        } while (length != 0);
+        return crc ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    private static void writeStoredBlock(OutputStream out, byte[] data, boolean last) throws IOException {
+        // BFINAL bit, BTYPE 00 and padding to the byte boundary, then LEN and its one's complement
+        out.write(last ? 1 : 0);
+        out.write(data.length & 0xff);
+        out.write((data.length >>> 8) & 0xff);
+        out.write(~data.length & 0xff);
+        out.write((~data.length >>> 8) & 0xff);
+        out.write(data);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
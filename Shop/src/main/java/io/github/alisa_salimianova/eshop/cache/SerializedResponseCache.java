@@ -0,0 +1,88 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.alisa_salimianova.eshop.catalog.CatalogListener;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.config.AppCacheProperties;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Кэш сериализованных ответов по товару и по списку активных товаров.
+ * Запись помечена версией витрины (той же, что уходит в ETag): запись с чужой версией
+ * пересобирается, а изменения витрины — локальные и с других узлов — сразу выбрасывают затронутые ключи.
+ */
+@Component
+@Slf4j
+public class SerializedResponseCache implements CatalogListener {
+
+    static final String CATALOG_KEY = "all-active";
+
+    private final ObjectMapper objectMapper;
+    private final AppCacheProperties.Serialized settings;
+    private final Cache<Object, SerializedBody> bodies;
+
+    public SerializedResponseCache(ObjectMapper objectMapper, AppCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.settings = properties.getSerialized();
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxBytes())
+                .weigher((Object key, SerializedBody body) -> body.weight())
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public SerializedBody product(long id, String version, Supplier<ProductResponse> loader) {
+        return get(id, version, loader);
+    }
+
+    public SerializedBody activeProducts(String version, Supplier<List<ProductResponse>> loader) {
+        return get(CATALOG_KEY, version, loader);
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        bodies.invalidateAll();
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        List<Object> keys = new ArrayList<>(changes.size() + 1);
+        changes.forEach(change -> keys.add(change.getId()));
+        keys.add(CATALOG_KEY);
+        bodies.invalidateAll(keys);
+    }
+
+    private SerializedBody get(Object key, String version, Supplier<?> loader) {
+        SerializedBody cached = bodies.getIfPresent(key);
+        if (cached != null && cached.version().equals(version)) {
+            return cached;
+        }
+        // A body built from an older version than the current one is replaced on the next read
+        SerializedBody body = SerializedBody.of(version, serialize(loader.get()), settings.getGzipMinBytes());
+        bodies.put(key, body);
+        log.debug("Serialized {} at version {}: {} bytes", key, version, body.json().length);
+        return body;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
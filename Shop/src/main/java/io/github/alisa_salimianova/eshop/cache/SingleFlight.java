@@ -0,0 +1,110 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Склеивание одновременных промахов кэша: первый запрос по ключу выполняет загрузку,
+ * остальные ждут его результата. Ожидание по каждому ключу ограничено таймаутом —
+ * после него один из ждущих перехватывает загрузку, а не висит на зависшей вечно.
+ * Сброс ключа из кэша забывает и его загрузку: она могла начаться до изменения,
+ * и следующий промах должен читать заново, а не присоединяться к ней.
+ */
+@Slf4j
+public class SingleFlight {
+
+    private static final String METRIC = "cache.single.flight";
+
+    private final String name;
+    private final Duration timeout;
+    private final Map<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final Counter led;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry registry) {
+        this.name = name;
+        this.timeout = timeout;
+        this.led = counter(registry, "leader");
+        this.coalesced = counter(registry, "coalesced");
+        this.timedOut = counter(registry, "timeout");
+        registry.gauge(METRIC + ".in.flight", Tags.of("cache", name), flights, Map::size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V load(Object key, Supplier<V> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> flight = flights.putIfAbsent(key, mine);
+        if (flight != null) {
+            // Counted once per request, however many takeover rounds it waits through
+            coalesced.increment();
+        }
+        while (flight != null) {
+            try {
+                return (V) flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timedOut.increment();
+                log.warn("Load of {} key {} did not finish in {}, taking it over", name, key, timeout);
+                // Only one waiter wins the takeover; the others join the new flight
+                flight = flights.replace(key, flight, mine) ? null : flights.putIfAbsent(key, mine);
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + name + " key " + key, e);
+            }
+        }
+        return (V) lead(key, mine, loader);
+    }
+
+    public void forget(Object key) {
+        flights.remove(key);
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    private Object lead(Object key, CompletableFuture<Object> mine, Supplier<?> loader) {
+        led.increment();
+        try {
+            Object value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, mine);
+        }
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder(METRIC)
+                .description("Cache loads by whether they ran, joined another load or timed out waiting")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Двухуровневый кэш: небольшой локальный L1 (Caffeine) перед общим L2 (Redis).
+ * Чтение идёт L1 → L2 → загрузчик; любая запись или удаление применяется к обоим уровням
+ * и рассылается остальным узлам, чтобы они сбросили свою копию в L1.
+ * Сбой Redis не доходит до вызывающего кода: чтение считается промахом L2, запись
+ * и удаление применяются к L1, поэтому при недоступном Redis кэш работает как локальный.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final CaffeineCache local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher publisher;
+    private final String nodeId;
+
+    public TwoTierCache(String name, CaffeineCache local, Cache remote,
+                        CacheInvalidationPublisher publisher, String nodeId) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    public CaffeineCache getLocal() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = remoteGet(key);
+        if (value != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // The local cache serializes concurrent loads of the same key within this node
+        return local.get(key, () -> {
+            ValueWrapper shared = remoteGet(key);
+            if (shared != null) {
+                return (T) shared.get();
+            }
+            T value = valueLoader.call();
+            onRemote("put", key, () -> remote.put(key, value));
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        onRemote("put", key, () -> remote.put(key, value));
+        local.put(key, value);
+        publish(CacheInvalidationMessage.evict(nodeId, name, key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        onRemote("evict", key, () -> remote.evict(key));
+        local.evict(key);
+        publish(CacheInvalidationMessage.evict(nodeId, name, key));
+    }
+
+    @Override
+    public void clear() {
+        onRemote("clear", "*", remote::clear);
+        local.clear();
+        publish(CacheInvalidationMessage.clear(nodeId, name));
+    }
+
+    /**
+     * Применяет инвалидацию, пришедшую с другого узла: трогает только L1.
+     */
+    public void invalidateLocal(CacheInvalidationMessage message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        if (message.isClear()) {
+            local.clear();
+        } else {
+            local.evict(message.key());
+        }
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            return remote.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Redis read of {} key {} failed, loading it instead: {}", name, key, e.toString());
+            return null;
+        }
+    }
+
+    private void onRemote(String operation, Object key, Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            // A failed evict leaves the old entry in Redis until its TTL; L1 and the other nodes are still cleared
+            log.warn("Redis {} of {} key {} failed: {}", operation, name, key, e.toString());
+        }
+    }
+
+    private void publish(CacheInvalidationMessage message) {
+        try {
+            publisher.publish(message);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish cache invalidation {}: {}", message, e.toString());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Менеджер кэшей для многоузлового развёртывания.
+ * Записи и удаления откладываются до коммита транзакции, чтобы другие узлы
+ * не успели перечитать из БД ещё не зафиксированные данные.
+ */
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final List<Cache> caches;
+    private final Map<String, TwoTierCache> twoTierCaches;
+
+    public TwoTierCacheManager(Collection<? extends Cache> caches) {
+        this.caches = List.copyOf(caches);
+        this.twoTierCaches = caches.stream()
+                .filter(TwoTierCache.class::isInstance)
+                .map(TwoTierCache.class::cast)
+                .collect(Collectors.toMap(TwoTierCache::getName, Function.identity()));
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return caches;
+    }
+
+    public void handleInvalidation(CacheInvalidationMessage message) {
+        TwoTierCache cache = twoTierCaches.get(message.cacheName());
+        if (cache != null) {
+            cache.invalidateLocal(message);
+        }
+    }
+}
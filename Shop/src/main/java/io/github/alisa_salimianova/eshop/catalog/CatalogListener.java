@@ -0,0 +1,19 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+
+import java.util.List;
+
+/**
+ * Подписчик на изменения витрины. Вызывается последовательно, под блокировкой публикации
+ * снимка, поэтому производные индексы видят изменения в том же порядке, что и витрина.
+ */
+public interface CatalogListener {
+
+    void onCatalogLoaded(CatalogSnapshot snapshot);
+
+    /**
+     * @param changes товары после изменения; неактивные товары удалены из снимка
+     */
+    void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes);
+}
@@ -0,0 +1,456 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Неизменяемый колоночный снимок активных товаров.
+ * Строки отсортированы по id; числовые поля хранятся в примитивных массивах,
+ * повторяющиеся строки (производители) — в единственном экземпляре.
+ * Изменения создают новый снимок, поэтому читатели работают без блокировок.
+ */
+public final class CatalogSnapshot {
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of(
+            "id", "name", "price", "rating", "ratingCount", "stockQuantity", "createdAt", "updatedAt");
+
+    private final long version;
+    private final LocalDateTime lastModified;
+    private final int size;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final byte[] categories;
+    private final int[] stock;
+    private final double[] ratings;
+    private final int[] ratingCounts;
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] manufacturers;
+    private final String[] skus;
+    private final LocalDateTime[] createdAt;
+    private final LocalDateTime[] updatedAt;
+    // Rows of each category in id order, so a category page does not scan the whole catalog
+    private final int[][] categoryRows;
+    // Carried from snapshot to snapshot; a manufacturer leaves it with the last row that uses it
+    private final Map<String, Interned> manufacturerPool;
+
+    private CatalogSnapshot(Builder builder, long version, LocalDateTime lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+        this.size = builder.size;
+        this.ids = trim(builder.ids, size);
+        this.priceCents = trim(builder.priceCents, size);
+        this.categories = trim(builder.categories, size);
+        this.stock = trim(builder.stock, size);
+        this.ratings = trim(builder.ratings, size);
+        this.ratingCounts = trim(builder.ratingCounts, size);
+        this.names = trim(builder.names, size);
+        this.descriptions = trim(builder.descriptions, size);
+        this.manufacturers = trim(builder.manufacturers, size);
+        this.skus = trim(builder.skus, size);
+        this.createdAt = trim(builder.createdAt, size);
+        this.updatedAt = trim(builder.updatedAt, size);
+        this.categoryRows = rowsByCategory(categories, size);
+        this.manufacturerPool = builder.manufacturerPool;
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(new Builder(0, new HashMap<>()), 0, null);
+    }
+
+    /**
+     * Возвращает новый снимок с применёнными изменениями: активные товары добавляются
+     * или заменяются, неактивные удаляются. Стоимость — O(n + k log k).
+     */
+    public CatalogSnapshot apply(Collection<ProductResponse> changes) {
+        TreeMap<Long, ProductResponse> changesById = new TreeMap<>();
+        LocalDateTime newLastModified = lastModified;
+        for (ProductResponse change : changes) {
+            changesById.put(change.getId(), change);
+            newLastModified = latest(newLastModified, change.getUpdatedAt());
+        }
+
+        // The pool is copied, not rebuilt: O(distinct manufacturers) instead of a pass over every row
+        Builder builder = new Builder(size + changesById.size(), new HashMap<>(manufacturerPool));
+        int row = 0;
+        for (ProductResponse change : changesById.values()) {
+            int end = lowerBound(change.getId(), row);
+            builder.copyRows(this, row, end);
+            row = end;
+            if (row < size && ids[row] == change.getId()) {
+                builder.release(manufacturers[row]);
+                row++;
+            }
+            if (Boolean.TRUE.equals(change.getActive())) {
+                builder.add(change);
+            }
+        }
+        builder.copyRows(this, row, size);
+        return new CatalogSnapshot(builder, version + 1, newLastModified);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int indexOf(long id) {
+        int row = lowerBound(id, 0);
+        return row < size && ids[row] == id ? row : -1;
+    }
+
+    public long idAt(int row) {
+        return ids[row];
+    }
+
+    public long priceCentsAt(int row) {
+        return priceCents[row];
+    }
+
+    public Category categoryAt(int row) {
+        return CATEGORIES[categories[row]];
+    }
+
+    public int stockAt(int row) {
+        return stock[row];
+    }
+
+    public double ratingAt(int row) {
+        return ratings[row];
+    }
+
+    public int ratingCountAt(int row) {
+        return ratingCounts[row];
+    }
+
+    public String nameAt(int row) {
+        return names[row];
+    }
+
+    public String descriptionAt(int row) {
+        return descriptions[row];
+    }
+
+    public String manufacturerAt(int row) {
+        return manufacturers[row];
+    }
+
+    public LocalDateTime createdAtAt(int row) {
+        return createdAt[row];
+    }
+
+    public LocalDateTime updatedAtAt(int row) {
+        return updatedAt[row];
+    }
+
+    public ProductResponse toResponse(int row) {
+        return ProductResponse.builder()
+                .id(ids[row])
+                .name(names[row])
+                .description(descriptions[row])
+                .price(fromCents(priceCents[row]))
+                .category(CATEGORIES[categories[row]])
+                .manufacturer(manufacturers[row])
+                .sku(skus[row])
+                .stockQuantity(stock[row])
+                .rating(ratings[row])
+                .ratingCount(ratingCounts[row])
+                .active(true)
+                .createdAt(createdAt[row])
+                .updatedAt(updatedAt[row])
+                .build();
+    }
+
+    public List<ProductResponse> findAll() {
+        return select(row -> true);
+    }
+
+    public List<ProductResponse> findByCategory(Category category) {
+        int[] rows = categoryRows[category.ordinal()];
+        List<ProductResponse> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toResponse(row));
+        }
+        return result;
+    }
+
+    public int countInCategory(Category category) {
+        return categoryRows[category.ordinal()].length;
+    }
+
+    /**
+     * Строка {@code index}-го товара категории по возрастанию id.
+     */
+    public int categoryRowAt(Category category, int index) {
+        return categoryRows[category.ordinal()][index];
+    }
+
+    public List<ProductResponse> findUnderPrice(long maxPriceCents) {
+        return select(row -> priceCents[row] <= maxPriceCents);
+    }
+
+    public List<ProductResponse> select(IntPredicate rowFilter) {
+        List<ProductResponse> result = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (rowFilter.test(row)) {
+                result.add(toResponse(row));
+            }
+        }
+        return result;
+    }
+
+    public static boolean isSortable(Sort sort) {
+        return sort.stream().allMatch(order -> SORTABLE_PROPERTIES.contains(order.getProperty()));
+    }
+
+    /**
+     * Порядок строк для запрошенной сортировки с добором по id;
+     * пусто, если сортировка по одному из полей не поддерживается.
+     */
+    public Optional<Comparator<Integer>> rowOrder(Sort sort) {
+        if (!isSortable(sort)) {
+            return Optional.empty();
+        }
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Integer> next = switch (order.getProperty()) {
+                case "name" -> Comparator.comparing(this::nameAt);
+                case "price" -> Comparator.comparingLong(this::priceCentsAt);
+                case "rating" -> Comparator.comparingDouble(this::ratingAt);
+                case "ratingCount" -> Comparator.comparingInt(this::ratingCountAt);
+                case "stockQuantity" -> Comparator.comparingInt(this::stockAt);
+                case "createdAt" -> Comparator.comparing(this::createdAtAt);
+                case "updatedAt" -> Comparator.comparing(this::updatedAtAt);
+                default -> Comparator.comparingLong(this::idAt);
+            };
+            next = order.isDescending() ? next.reversed() : next;
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Integer> byId = Comparator.comparingLong(this::idAt);
+        return Optional.of(comparator == null ? byId : comparator.thenComparing(byId));
+    }
+
+    public static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private int lowerBound(long id, int from) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] trim(long[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static int[] trim(int[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static byte[] trim(byte[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static double[] trim(double[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static <T> T[] trim(T[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static int[][] rowsByCategory(byte[] categories, int size) {
+        int[] counts = new int[CATEGORIES.length];
+        for (int row = 0; row < size; row++) {
+            counts[categories[row]]++;
+        }
+        int[][] rows = new int[CATEGORIES.length][];
+        for (int category = 0; category < rows.length; category++) {
+            rows[category] = new int[counts[category]];
+        }
+        int[] filled = new int[CATEGORIES.length];
+        for (int row = 0; row < size; row++) {
+            rows[categories[row]][filled[categories[row]]++] = row;
+        }
+        return rows;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * Собирает первый снимок за один проход из страниц, пришедших по возрастанию id,
+     * вместо слияния каждой страницы с уже собранным снимком.
+     */
+    public static final class Loader {
+        private final Builder builder = new Builder(0, new HashMap<>());
+        private LocalDateTime lastModified;
+
+        public Loader append(Collection<ProductResponse> products) {
+            builder.ensureCapacity(builder.size + products.size());
+            for (ProductResponse product : products) {
+                if (builder.size > 0 && builder.ids[builder.size - 1] >= product.getId()) {
+                    throw new IllegalArgumentException("Products must be loaded in ascending id order");
+                }
+                lastModified = latest(lastModified, product.getUpdatedAt());
+                if (Boolean.TRUE.equals(product.getActive())) {
+                    builder.add(product);
+                }
+            }
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            return new CatalogSnapshot(builder, 1, lastModified);
+        }
+    }
+
+    // A pooled manufacturer and the number of rows that share it
+    private record Interned(String value, int rows) {
+    }
+
+    private static final class Builder {
+        private int size;
+        private long[] ids;
+        private long[] priceCents;
+        private byte[] categories;
+        private int[] stock;
+        private double[] ratings;
+        private int[] ratingCounts;
+        private String[] names;
+        private String[] descriptions;
+        private String[] manufacturers;
+        private String[] skus;
+        private LocalDateTime[] createdAt;
+        private LocalDateTime[] updatedAt;
+        private final Map<String, Interned> manufacturerPool;
+
+        private Builder(int capacity, Map<String, Interned> manufacturerPool) {
+            this.manufacturerPool = manufacturerPool;
+            ids = new long[capacity];
+            priceCents = new long[capacity];
+            categories = new byte[capacity];
+            stock = new int[capacity];
+            ratings = new double[capacity];
+            ratingCounts = new int[capacity];
+            names = new String[capacity];
+            descriptions = new String[capacity];
+            manufacturers = new String[capacity];
+            skus = new String[capacity];
+            createdAt = new LocalDateTime[capacity];
+            updatedAt = new LocalDateTime[capacity];
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, grown);
+            priceCents = Arrays.copyOf(priceCents, grown);
+            categories = Arrays.copyOf(categories, grown);
+            stock = Arrays.copyOf(stock, grown);
+            ratings = Arrays.copyOf(ratings, grown);
+            ratingCounts = Arrays.copyOf(ratingCounts, grown);
+            names = Arrays.copyOf(names, grown);
+            descriptions = Arrays.copyOf(descriptions, grown);
+            manufacturers = Arrays.copyOf(manufacturers, grown);
+            skus = Arrays.copyOf(skus, grown);
+            createdAt = Arrays.copyOf(createdAt, grown);
+            updatedAt = Arrays.copyOf(updatedAt, grown);
+        }
+
+        private void copyRows(CatalogSnapshot source, int from, int to) {
+            int length = to - from;
+            if (length <= 0) {
+                return;
+            }
+            System.arraycopy(source.ids, from, ids, size, length);
+            System.arraycopy(source.priceCents, from, priceCents, size, length);
+            System.arraycopy(source.categories, from, categories, size, length);
+            System.arraycopy(source.stock, from, stock, size, length);
+            System.arraycopy(source.ratings, from, ratings, size, length);
+            System.arraycopy(source.ratingCounts, from, ratingCounts, size, length);
+            System.arraycopy(source.names, from, names, size, length);
+            System.arraycopy(source.descriptions, from, descriptions, size, length);
+            System.arraycopy(source.manufacturers, from, manufacturers, size, length);
+            System.arraycopy(source.skus, from, skus, size, length);
+            System.arraycopy(source.createdAt, from, createdAt, size, length);
+            System.arraycopy(source.updatedAt, from, updatedAt, size, length);
+            size += length;
+        }
+
+        private void add(ProductResponse product) {
+            ids[size] = product.getId();
+            priceCents[size] = toCents(product.getPrice());
+            categories[size] = (byte) product.getCategory().ordinal();
+            stock[size] = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            ratings[size] = product.getRating() != null ? product.getRating() : 0.0;
+            ratingCounts[size] = product.getRatingCount() != null ? product.getRatingCount() : 0;
+            names[size] = product.getName();
+            descriptions[size] = product.getDescription();
+            manufacturers[size] = intern(product.getManufacturer());
+            skus[size] = product.getSku();
+            createdAt[size] = product.getCreatedAt();
+            updatedAt[size] = product.getUpdatedAt();
+            size++;
+        }
+
+        private String intern(String manufacturer) {
+            if (manufacturer == null) {
+                return null;
+            }
+            return manufacturerPool.merge(manufacturer, new Interned(manufacturer, 1),
+                    (pooled, added) -> new Interned(pooled.value(), pooled.rows() + 1)).value();
+        }
+
+        // The replaced or removed row no longer holds its manufacturer in the pool
+        private void release(String manufacturer) {
+            if (manufacturer != null) {
+                manufacturerPool.computeIfPresent(manufacturer,
+                        (name, pooled) -> pooled.rows() > 1 ? new Interned(pooled.value(), pooled.rows() - 1) : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Индекс цен активных товаров: общий упорядоченный список и отдельные списки по категориям.
+ * Отвечает на запросы «дешевле», «в диапазоне» и «N самых дешёвых» за O(log n + k).
+ */
+@Component
+@Slf4j
+public class PriceIndex implements CatalogListener {
+
+    private volatile State state;
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        state = State.build(snapshot);
+        log.info("Price index built for {} products", snapshot.size());
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        State current = state;
+        state = current != null ? current.withChanges(snapshot, changes) : State.build(snapshot);
+    }
+
+    public Optional<List<ProductResponse>> findAtMost(long maxCents, Category category) {
+        return query(category, prices -> prices.atMost(maxCents));
+    }
+
+    public Optional<List<ProductResponse>> findBetween(long minCents, long maxCents, Category category) {
+        return query(category, prices -> prices.between(minCents, maxCents));
+    }
+
+    public Optional<List<ProductResponse>> findCheapest(int limit, Category category) {
+        return query(category, prices -> prices.cheapest(limit));
+    }
+
+    private Optional<List<ProductResponse>> query(Category category, Function<SortedPrices, long[]> lookup) {
+        State current = state;
+        if (current == null) {
+            return Optional.empty();
+        }
+        SortedPrices prices = category == null
+                ? current.all
+                : current.byCategory.getOrDefault(category, SortedPrices.EMPTY);
+        // The snapshot is published together with the index, so every id resolves to a row
+        return Optional.of(Arrays.stream(lookup.apply(prices))
+                .mapToObj(id -> current.snapshot.toResponse(current.snapshot.indexOf(id)))
+                .collect(Collectors.toList()));
+    }
+
+    private record State(CatalogSnapshot snapshot, SortedPrices all, Map<Category, SortedPrices> byCategory) {
+
+        static State build(CatalogSnapshot snapshot) {
+            int size = snapshot.size();
+            long[] cents = new long[size];
+            long[] ids = new long[size];
+            for (int row = 0; row < size; row++) {
+                cents[row] = snapshot.priceCentsAt(row);
+                ids[row] = snapshot.idAt(row);
+            }
+            Map<Category, SortedPrices> byCategory = new EnumMap<>(Category.class);
+            for (Category category : Category.values()) {
+                byCategory.put(category, partition(snapshot, category));
+            }
+            return new State(snapshot, SortedPrices.sort(cents, ids, size), byCategory);
+        }
+
+        State withChanges(CatalogSnapshot next, List<ProductResponse> changes) {
+            Set<Long> changedIds = new HashSet<>();
+            changes.forEach(change -> changedIds.add(change.getId()));
+            // Pull the new values from the published snapshot so the index never disagrees with it
+            long[] cents = new long[changes.size()];
+            long[] ids = new long[changes.size()];
+            Category[] categories = new Category[changes.size()];
+            int size = 0;
+            for (Long id : changedIds) {
+                int row = next.indexOf(id);
+                if (row >= 0) {
+                    cents[size] = next.priceCentsAt(row);
+                    ids[size] = id;
+                    categories[size++] = next.categoryAt(row);
+                }
+            }
+
+            Map<Category, SortedPrices> nextByCategory = new EnumMap<>(Category.class);
+            for (Category category : Category.values()) {
+                long[] categoryCents = new long[size];
+                long[] categoryIds = new long[size];
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (categories[i] == category) {
+                        categoryCents[count] = cents[i];
+                        categoryIds[count++] = ids[i];
+                    }
+                }
+                nextByCategory.put(category, byCategory.get(category)
+                        .merge(changedIds, SortedPrices.sort(categoryCents, categoryIds, count)));
+            }
+            return new State(next, all.merge(changedIds, SortedPrices.sort(cents, ids, size)), nextByCategory);
+        }
+
+        private static SortedPrices partition(CatalogSnapshot snapshot, Category category) {
+            long[] cents = new long[snapshot.size()];
+            long[] ids = new long[snapshot.size()];
+            int count = 0;
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (snapshot.categoryAt(row) == category) {
+                    cents[count] = snapshot.priceCentsAt(row);
+                    ids[count++] = snapshot.idAt(row);
+                }
+            }
+            return SortedPrices.sort(cents, ids, count);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Витрина активных товаров в памяти процесса.
+ * Хранит текущий {@link CatalogSnapshot}; локальные записи применяются после коммита,
+ * изменения с других узлов подтягиваются периодическим опросом по {@code updatedAt}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalog {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ObjectProvider<CatalogListener> listeners;
+
+    @Value("${app.catalog.sync-overlap:5s}")
+    private Duration syncOverlap;
+
+    private volatile CatalogSnapshot snapshot;
+
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    public Optional<ProductResponse> findById(long id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int row = current.indexOf(id);
+        return row >= 0 ? Optional.of(current.toResponse(row)) : Optional.empty();
+    }
+
+    /**
+     * Версия товара для ETag: id и время последнего изменения в микросекундах.
+     * Не зависит от узла, поэтому одинакова за любым балансировщиком.
+     */
+    public Optional<String> productVersion(long id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int row = current.indexOf(id);
+        return row >= 0 ? Optional.of(id + "-" + toMicros(current.updatedAtAt(row))) : Optional.empty();
+    }
+
+    /**
+     * Версия всей витрины для ETag: любая запись двигает {@code updatedAt}, а удаление меняет размер.
+     */
+    public Optional<String> catalogVersion() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.size() + "-" + toMicros(current.getLastModified()));
+    }
+
+    /**
+     * Страница товаров категории из снимка. Пусто, если снимок ещё не загружен
+     * или сортировка по запрошенному полю не поддерживается.
+     */
+    public Optional<Page<ProductResponse>> findByCategory(Category category, Pageable pageable) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        Optional<Comparator<Integer>> order = current.rowOrder(pageable.getSort());
+        if (order.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int total = current.countInCategory(category);
+        int offset = (int) Math.min(pageable.isPaged() ? pageable.getOffset() : 0, total);
+        int end = pageable.isPaged() ? (int) Math.min((long) offset + pageable.getPageSize(), total) : total;
+        List<ProductResponse> content = new ArrayList<>(end - offset);
+        if (pageable.getSort().isUnsorted()) {
+            // The category's rows are kept in id order, so the page is a slice of them
+            for (int index = offset; index < end; index++) {
+                content.add(current.toResponse(current.categoryRowAt(category, index)));
+            }
+        } else {
+            List<Integer> rows = new ArrayList<>(total);
+            for (int index = 0; index < total; index++) {
+                rows.add(current.categoryRowAt(category, index));
+            }
+            rows.sort(order.get());
+            rows.subList(offset, end).forEach(row -> content.add(current.toResponse(row)));
+        }
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        CatalogSnapshot.Loader loader = new CatalogSnapshot.Loader();
+        Slice<ProductResponse> page;
+        int pageNumber = 0;
+        do {
+            page = productRepository.findActiveResponses(PageRequest.of(pageNumber++, LOAD_PAGE_SIZE, Sort.by("id")));
+            loader.append(page.getContent());
+        } while (page.hasNext());
+        CatalogSnapshot loaded = loader.build();
+
+        synchronized (this) {
+            snapshot = loaded;
+            CatalogSnapshot published = loaded;
+            listeners.orderedStream().forEach(listener -> listener.onCatalogLoaded(published));
+        }
+        log.info("Product catalog loaded: {} active products", loaded.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        apply(event.products());
+    }
+
+    /**
+     * Подтягивает изменения, сделанные другими узлами или массовыми операциями.
+     * Окно перекрытия страхует от расхождения часов и долгих транзакций.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.sync-interval-ms:5000}", initialDelayString = "${app.catalog.sync-interval-ms:5000}")
+    public void syncFromDatabase() {
+        CatalogSnapshot current = snapshot;
+        if (current == null || current.getLastModified() == null) {
+            return;
+        }
+        LocalDateTime since = current.getLastModified().minus(syncOverlap);
+        apply(productRepository.findResponsesUpdatedAfter(since));
+    }
+
+    private synchronized void apply(Collection<ProductResponse> changes) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            // Not loaded yet: the initial load or the next sync will pick these rows up
+            return;
+        }
+        List<ProductResponse> effective = changes.stream()
+                .filter(change -> isNewer(current, change))
+                .collect(Collectors.toList());
+        if (!effective.isEmpty()) {
+            CatalogSnapshot published = current.apply(effective);
+            snapshot = published;
+            listeners.orderedStream().forEach(listener -> listener.onProductsChanged(published, effective));
+            log.debug("Catalog snapshot {} published with {} changes", published.getVersion(), effective.size());
+        }
+    }
+
+    private boolean isNewer(CatalogSnapshot current, ProductResponse change) {
+        int row = current.indexOf(change.getId());
+        if (!Boolean.TRUE.equals(change.getActive())) {
+            return row >= 0;
+        }
+        if (row < 0 || change.getUpdatedAt() == null || current.updatedAtAt(row) == null) {
+            return true;
+        }
+        // The database keeps microseconds, while locally published rows may carry nanoseconds
+        return !change.getUpdatedAt().truncatedTo(ChronoUnit.MICROS)
+                .equals(current.updatedAtAt(row).truncatedTo(ChronoUnit.MICROS));
+    }
+
+    private static String toMicros(LocalDateTime time) {
+        if (time == null) {
+            return "0";
+        }
+        long micros = time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+        return Long.toHexString(micros);
+    }
+}
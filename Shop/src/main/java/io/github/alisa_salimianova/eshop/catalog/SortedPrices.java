@@ -0,0 +1,126 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Неизменяемый список товаров, упорядоченный по (цена в копейках, id).
+ * Диапазонные запросы — два бинарных поиска и копирование найденного отрезка.
+ */
+public final class SortedPrices {
+
+    static final SortedPrices EMPTY = new SortedPrices(new long[0], new long[0]);
+
+    private final long[] cents;
+    private final long[] ids;
+
+    private SortedPrices(long[] cents, long[] ids) {
+        this.cents = cents;
+        this.ids = ids;
+    }
+
+    /**
+     * Сортирует произвольные пары; используется при полной загрузке и для пачки изменений.
+     */
+    static SortedPrices sort(long[] cents, long[] ids, int length) {
+        Integer[] order = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> cents[i]).thenComparingLong(i -> ids[i]));
+        long[] sortedCents = new long[length];
+        long[] sortedIds = new long[length];
+        for (int i = 0; i < length; i++) {
+            sortedCents[i] = cents[order[i]];
+            sortedIds[i] = ids[order[i]];
+        }
+        return new SortedPrices(sortedCents, sortedIds);
+    }
+
+    /**
+     * Убирает изменённые id и вливает новые пары за один проход: O(n + k).
+     * Если список не затронут, возвращает его же.
+     */
+    SortedPrices merge(Set<Long> changedIds, SortedPrices additions) {
+        boolean touched = additions.size() > 0;
+        for (int i = 0; i < ids.length && !touched; i++) {
+            touched = changedIds.contains(ids[i]);
+        }
+        if (!touched) {
+            return this;
+        }
+
+        long[] mergedCents = new long[ids.length + additions.size()];
+        long[] mergedIds = new long[mergedCents.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (changedIds.contains(ids[i])) {
+                continue;
+            }
+            while (j < additions.size() && compare(additions.cents[j], additions.ids[j], cents[i], ids[i]) < 0) {
+                mergedCents[size] = additions.cents[j];
+                mergedIds[size++] = additions.ids[j++];
+            }
+            mergedCents[size] = cents[i];
+            mergedIds[size++] = ids[i];
+        }
+        while (j < additions.size()) {
+            mergedCents[size] = additions.cents[j];
+            mergedIds[size++] = additions.ids[j++];
+        }
+        return new SortedPrices(Arrays.copyOf(mergedCents, size), Arrays.copyOf(mergedIds, size));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long[] atMost(long maxCents) {
+        return Arrays.copyOfRange(ids, 0, upperBound(maxCents));
+    }
+
+    public long[] between(long minCents, long maxCents) {
+        int from = lowerBound(minCents);
+        int to = upperBound(maxCents);
+        return from < to ? Arrays.copyOfRange(ids, from, to) : new long[0];
+    }
+
+    public long[] cheapest(int limit) {
+        return Arrays.copyOf(ids, Math.min(limit, ids.length));
+    }
+
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = cents.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cents[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(long value) {
+        int low = 0;
+        int high = cents.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cents[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long leftCents, long leftId, long rightCents, long rightId) {
+        int byPrice = Long.compare(leftCents, rightCents);
+        return byPrice != 0 ? byPrice : Long.compare(leftId, rightId);
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг активных товаров по (рейтинг, число оценок, id): общий и по категориям.
+ * Упорядоченные множества обновляются на месте за O(log n), чтение первых K — O(K).
+ */
+@Component
+@Slf4j
+public class TopRatedIndex implements CatalogListener {
+
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingDouble(Entry::rating).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::ratingCount).reversed())
+            .thenComparingLong(Entry::id);
+
+    private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(BEST_FIRST);
+    private final Map<Category, NavigableSet<Entry>> byCategory = new EnumMap<>(Category.class);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile CatalogSnapshot snapshot;
+
+    public TopRatedIndex() {
+        for (Category category : Category.values()) {
+            byCategory.put(category, new ConcurrentSkipListSet<>(BEST_FIRST));
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot loaded) {
+        snapshot = loaded;
+        all.clear();
+        byCategory.values().forEach(NavigableSet::clear);
+        entries.clear();
+        for (int row = 0; row < loaded.size(); row++) {
+            put(new Entry(loaded.idAt(row), loaded.categoryAt(row), loaded.ratingAt(row), loaded.ratingCountAt(row)));
+        }
+        log.info("Top-rated index built for {} products", loaded.size());
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot next, List<ProductResponse> changes) {
+        // Publish the snapshot first so that every entry readers can reach resolves to a row
+        snapshot = next;
+        for (ProductResponse change : changes) {
+            Entry previous = entries.remove(change.getId());
+            if (previous != null) {
+                all.remove(previous);
+                byCategory.get(previous.category()).remove(previous);
+            }
+            int row = next.indexOf(change.getId());
+            if (row >= 0) {
+                put(new Entry(next.idAt(row), next.categoryAt(row), next.ratingAt(row), next.ratingCountAt(row)));
+            }
+        }
+    }
+
+    /**
+     * Первые {@code limit} товаров по рейтингу; пусто, пока витрина не загружена.
+     * Во время переупорядочивания товар может ненадолго выпасть из выдачи.
+     */
+    public Optional<List<ProductResponse>> top(int limit, Category category) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        NavigableSet<Entry> ranking = category == null ? all : byCategory.get(category);
+        List<ProductResponse> result = new ArrayList<>(limit);
+        for (Entry entry : ranking) {
+            if (result.size() == limit) {
+                break;
+            }
+            int row = current.indexOf(entry.id());
+            if (row >= 0) {
+                result.add(current.toResponse(row));
+            }
+        }
+        return Optional.of(result);
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.id(), entry);
+        all.add(entry);
+        byCategory.get(entry.category()).add(entry);
+    }
+
+    private record Entry(long id, Category category, double rating, int ratingCount) {
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки кэшей приложения ({@code app.cache.*}).
+ * Для каждого кэша задаются время жизни записи и максимальный "вес":
+ * одиночная запись весит 1, список — количество его элементов.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+
+    private CacheSpec products = new CacheSpec(30, 50_000);
+    private CacheSpec categories = new CacheSpec(60, 1_000);
+    private CacheSpec orders = new CacheSpec(10, 10_000);
+    private TwoTier twoTier = new TwoTier();
+    private Serialized serialized = new Serialized();
+    private SingleFlightSpec singleFlight = new SingleFlightSpec();
+    private WarmUp warmUp = new WarmUp();
+    private RefreshAhead refreshAhead = new RefreshAhead();
+
+    public Map<String, CacheSpec> specsByCacheName() {
+        Map<String, CacheSpec> specs = new LinkedHashMap<>();
+        specs.put("products", products);
+        specs.put("categories", categories);
+        specs.put("orders", orders);
+        return specs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        private long ttlMinutes;
+        private long maxWeight;
+    }
+
+    /**
+     * Двухуровневый режим: локальный near-cache (L1) перед общим Redis (L2).
+     * Изменения рассылаются остальным узлам через Redis pub/sub.
+     */
+    @Data
+    public static class TwoTier {
+        private boolean enabled = false;
+        private String channel = "eshop:cache:invalidation";
+        private List<String> cacheNames = List.of("products");
+        private CacheSpec nearCache = new CacheSpec(5, 5_000);
+    }
+
+    /**
+     * Кэш готовых JSON-ответов: вес записи — её размер в байтах.
+     * Сжатая копия хранится только для ответов не короче {@code gzipMinBytes}.
+     */
+    @Data
+    public static class Serialized {
+        private boolean enabled = true;
+        private long maxBytes = 64L * 1024 * 1024;
+        private int gzipMinBytes = 1024;
+    }
+
+    /**
+     * Склеивание одновременных промахов: сколько ждать чужую загрузку того же ключа.
+     */
+    @Data
+    public static class SingleFlightSpec {
+        private Duration timeout = Duration.ofSeconds(3);
+    }
+
+    /**
+     * Прогрев кэша при старте: самые популярные товары и списки загружаются до того,
+     * как узел объявит готовность принимать трафик.
+     */
+    @Data
+    public static class WarmUp {
+        private boolean enabled = true;
+        private int hotProducts = 500;
+        private int batchSize = 50;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Упреждающее обновление: самые востребованные записи, которым до истечения осталось
+     * меньше {@code window}, перечитываются в фоне. Холодные записи истекают как обычно.
+     */
+    @Data
+    public static class RefreshAhead {
+        private boolean enabled = true;
+        private Duration window = Duration.ofMinutes(2);
+        private int hottestEntries = 1000;
+    }
+}
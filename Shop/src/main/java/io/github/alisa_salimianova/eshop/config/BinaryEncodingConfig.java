@@ -0,0 +1,51 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.encoding.CompactEnvelope;
+import io.github.alisa_salimianova.eshop.encoding.JacksonProtobufHttpMessageConverter;
+import io.github.alisa_salimianova.eshop.encoding.ProtobufSchemas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Бинарные кодировки ответов по заголовку Accept: CBOR, Smile и Protobuf.
+ * JSON остаётся первым в списке конвертеров, поэтому клиенты с Accept: *&#47;* его и получают.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    private final ProtobufSchemas protobufSchemas;
+
+    // Replace the converters Spring adds for these formats so they share the JSON mapper settings
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory())
+                .mixIn(ApiResponseDto.class, CompactEnvelope.class)
+                .build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory())
+                .mixIn(ApiResponseDto.class, CompactEnvelope.class)
+                .build());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Appended rather than registered as a bean, which Spring Boot would put in front of JSON
+        converters.add(new JacksonProtobufHttpMessageConverter(protobufSchemas));
+    }
+}
@@ -1,21 +1,57 @@
 package io.github.alisa_salimianova.eshop.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.alisa_salimianova.eshop.cache.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(AppCacheProperties.class)
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-                "products",
-                "categories",
-                "orders"
-        );
+    @ConditionalOnProperty(prefix = "app.cache.two-tier", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public CacheManager cacheManager(AppCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Unknown cache names must fail fast instead of silently creating unbounded caches
+        cacheManager.setCacheNames(List.of());
+        properties.specsByCacheName().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, buildCache(spec)));
+        // Evictions are applied after commit so concurrent readers cannot re-cache uncommitted state
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    public SingleFlight productLoads(AppCacheProperties properties, MeterRegistry meterRegistry) {
+        return new SingleFlight("products", properties.getSingleFlight().getTimeout(), meterRegistry);
+    }
+
+    static Cache<Object, Object> buildCache(AppCacheProperties.CacheSpec spec) {
+        return Caffeine.newBuilder()
+                .maximumWeight(spec.getMaxWeight())
+                .weigher(CacheConfig::weigh)
+                .expireAfterWrite(Duration.ofMinutes(spec.getTtlMinutes()))
+                .recordStats()
+                .build();
+    }
+
+    private static int weigh(Object key, Object value) {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        return 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки учёта остатков ({@code app.inventory.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+
+    private Reservations reservations = new Reservations();
+    private Sharding sharding = new Sharding();
+    private int reconcileBatchSize = 500;
+
+    @Data
+    public static class Reservations {
+        // The ledger lives in one JVM: with several nodes, hot products must be routed to one of them
+        private boolean enabled = false;
+        private Duration holdTtl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Sharding {
+        // Products at or above minStock get their stock split across bucket rows
+        private boolean enabled = false;
+        private int buckets = 8;
+        private int minStock = 100;
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OrderPipelineProperties.class)
+public class OrderConfig {
+}
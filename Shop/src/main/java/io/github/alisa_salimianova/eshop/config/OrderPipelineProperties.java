@@ -0,0 +1,26 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Потоки и очереди этапов конвейера заказа ({@code app.orders.pipeline.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.orders.pipeline")
+public class OrderPipelineProperties {
+
+    private Stage accept = new Stage(4, 100);
+    private Stage reserve = new Stage(4, 100);
+    private Stage fulfil = new Stage(4, 100);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+        private int threads;
+        private int queueCapacity;
+    }
+}
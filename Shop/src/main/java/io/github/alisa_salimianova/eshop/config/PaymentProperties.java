@@ -0,0 +1,31 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки вызова платёжных провайдеров ({@code app.payments.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.payments")
+public class PaymentProperties {
+
+    // Shared by all providers; each provider is further capped by its own maxConcurrent
+    private int threads = 32;
+    private String defaultMethod = "Credit Card";
+    // Keyed by payment method name in kebab case, e.g. credit-card or paypal
+    private Map<String, Provider> providers = new HashMap<>();
+
+    @Data
+    public static class Provider {
+        private Duration timeout = Duration.ofSeconds(2);
+        private int maxConcurrent = 16;
+        // Consecutive failures or timeouts that open the circuit
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import io.github.alisa_salimianova.eshop.cache.SerializedEnvelope;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Пишет {@link SerializedEnvelope} прямо в поток ответа, минуя Jackson.
+ * Spring Boot ставит бины-конвертеры впереди стандартных.
+ */
+@Component
+public class SerializedEnvelopeHttpMessageConverter extends AbstractHttpMessageConverter<SerializedEnvelope> {
+
+    public SerializedEnvelopeHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedEnvelope.class.equals(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SerializedEnvelope readInternal(Class<? extends SerializedEnvelope> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Pre-serialized responses cannot be read", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(SerializedEnvelope envelope, MediaType contentType) {
+        return envelope.contentLength();
+    }
+
+    @Override
+    protected void writeInternal(SerializedEnvelope envelope, HttpOutputMessage outputMessage) throws IOException {
+        envelope.writeTo(outputMessage.getBody());
+    }
+}
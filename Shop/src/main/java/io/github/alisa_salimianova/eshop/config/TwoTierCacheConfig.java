@@ -0,0 +1,104 @@
+package io.github.alisa_salimianova.eshop.config;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.alisa_salimianova.eshop.cache.CacheInvalidationPublisher;
+import io.github.alisa_salimianova.eshop.cache.RedisCacheInvalidationListener;
+import io.github.alisa_salimianova.eshop.cache.RedisCacheInvalidationPublisher;
+import io.github.alisa_salimianova.eshop.cache.TwoTierCache;
+import io.github.alisa_salimianova.eshop.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Двухуровневый кэш для нескольких реплик приложения (включается {@code app.cache.two-tier.enabled}).
+ * Кэши из {@code app.cache.two-tier.cache-names} получают near-cache перед Redis,
+ * остальные остаются локальными Caffeine-кэшами.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cache.two-tier", name = "enabled", havingValue = "true")
+@Slf4j
+public class TwoTierCacheConfig {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate redisTemplate,
+                                                                 AppCacheProperties properties) {
+        return new RedisCacheInvalidationPublisher(redisTemplate, properties.getTwoTier().getChannel());
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(AppCacheProperties properties,
+                                            RedisConnectionFactory connectionFactory,
+                                            CacheInvalidationPublisher publisher) {
+        AppCacheProperties.TwoTier twoTier = properties.getTwoTier();
+        RedisCacheManager redisCacheManager = buildRedisCacheManager(properties, connectionFactory);
+
+        List<Cache> caches = new ArrayList<>();
+        properties.specsByCacheName().forEach((name, spec) -> {
+            if (twoTier.getCacheNames().contains(name)) {
+                CaffeineCache local = new CaffeineCache(name, CacheConfig.buildCache(twoTier.getNearCache()));
+                caches.add(new TwoTierCache(name, local, redisCacheManager.getCache(name), publisher, nodeId));
+            } else {
+                caches.add(new CaffeineCache(name, CacheConfig.buildCache(spec)));
+            }
+        });
+
+        log.info("Two-tier cache enabled for {} on node {}", twoTier.getCacheNames(), nodeId);
+        return new TwoTierCacheManager(caches);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoTierCacheManager cacheManager,
+                                                                            AppCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new RedisCacheInvalidationListener(cacheManager),
+                new ChannelTopic(properties.getTwoTier().getChannel()));
+        return container;
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getLocal().getNativeCache(), cache.getName(), tags);
+    }
+
+    private RedisCacheManager buildRedisCacheManager(AppCacheProperties properties,
+                                                     RedisConnectionFactory connectionFactory) {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
+                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory));
+        properties.specsByCacheName().forEach((name, spec) -> builder.withCacheConfiguration(name,
+                RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofMinutes(spec.getTtlMinutes()))
+                        .prefixCacheNameWith("eshop:")
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))));
+
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.initializeCaches();
+        return redisCacheManager;
+    }
+}
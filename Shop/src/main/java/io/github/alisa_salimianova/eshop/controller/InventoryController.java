@@ -0,0 +1,54 @@
+package io.github.alisa_salimianova.eshop.controller;
+
+import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
+import io.github.alisa_salimianova.eshop.dto.request.CreateStockHoldRequest;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.dto.response.StockHoldResponse;
+import io.github.alisa_salimianova.eshop.inventory.StockHold;
+import io.github.alisa_salimianova.eshop.inventory.StockReservations;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенные товары (например, из корзины на время оформления); id резерва передаётся
+ * в заказ как {@code holdId}. Доступно только при включённом учёте остатков в памяти.
+ */
+@RestController
+@RequestMapping("/api/v1/inventory/holds")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.inventory.reservations", name = "enabled", havingValue = "true")
+public class InventoryController {
+
+    private final StockReservations stockReservations;
+
+    @PostMapping
+    public ResponseEntity<ApiResponseDto<StockHoldResponse>> createHold(
+            @Valid @RequestBody CreateStockHoldRequest request) {
+        Map<Long, Integer> items = request.getItems().stream()
+                .collect(Collectors.toMap(CreateOrderRequest.OrderItem::getProductId,
+                        CreateOrderRequest.OrderItem::getQuantity, Integer::sum));
+        StockHold hold = stockReservations.hold(items);
+        StockHoldResponse response = StockHoldResponse.builder()
+                .id(hold.id())
+                .items(hold.items())
+                .expiresAt(hold.expiresAt())
+                .build();
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponseDto.success(response, "Stock held successfully"));
+    }
+
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<ApiResponseDto<Void>> releaseHold(@PathVariable UUID holdId) {
+        stockReservations.release(holdId);
+        return ResponseEntity.ok(ApiResponseDto.success(null, "Stock hold released"));
+    }
+}
@@ -3,6 +3,7 @@ package io.github.alisa_salimianova.eshop.controller;
 import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
 import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
 import io.github.alisa_salimianova.eshop.dto.response.OrderResponse;
+import io.github.alisa_salimianova.eshop.order.OrderPipeline;
 import io.github.alisa_salimianova.eshop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -10,9 +11,9 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -20,26 +21,24 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderPipeline orderPipeline;
 
+    /**
+     * Принимает заказ в конвейер и отвечает 202, как только он сохранён; остатки, оплата
+     * и итоговый статус обрабатываются асинхронно и читаются по ссылке из Location.
+     */
     @PostMapping
-    public ResponseEntity<ApiResponseDto<OrderResponse>> createOrder(
+    public CompletableFuture<ResponseEntity<ApiResponseDto<OrderResponse>>> createOrder(
             @Valid @RequestBody CreateOrderRequest request) {
+        return orderPipeline.submit(request).thenApply(order -> ResponseEntity
+                .accepted()
+                .location(URI.create("/api/v1/orders/" + order.getId()))
+                .body(ApiResponseDto.success(order, "Order accepted")));
+    }
 
-        // Создаем заглушку для теста
-        OrderResponse order = OrderResponse.builder()
-                .id(1L)
-                .userId(request.getUserId())
-                .userName("Test User")
-                .userEmail("test@example.com")
-                .totalAmount(calculateOrderTotal(request))
-                .status(io.github.alisa_salimianova.eshop.model.enums.OrderStatus.PROCESSING)
-                .orderDate(LocalDateTime.now())
-                .paymentMethod("Credit Card")
-                .deliveryMethod("Standard Delivery")
-                .shippingAddress(request.getShippingAddress())
-                .build();
-
-        return ResponseEntity.ok(ApiResponseDto.success(order, "Order created successfully"));
+    @GetMapping("/{orderId}")
+    public ResponseEntity<ApiResponseDto<OrderResponse>> getOrder(@PathVariable Long orderId) {
+        return ResponseEntity.ok(ApiResponseDto.success(orderService.getOrder(orderId)));
     }
 
     @GetMapping("/user/{userId}")
@@ -56,9 +55,4 @@ public class OrderController {
         orderService.cancelOrder(orderId, userId);
         return ResponseEntity.ok(ApiResponseDto.success(null, "Order cancelled successfully"));
     }
-
-    private BigDecimal calculateOrderTotal(CreateOrderRequest request) {
-        // Простая логика расчета - 100$ за каждый товар
-        return BigDecimal.valueOf(request.getItems().size() * 100.0);
-    }
 }
\ No newline at end of file
@@ -1,29 +1,64 @@
 package io.github.alisa_salimianova.eshop.controller;
 
+import io.github.alisa_salimianova.eshop.cache.SerializedBody;
+import io.github.alisa_salimianova.eshop.cache.SerializedEnvelope;
+import io.github.alisa_salimianova.eshop.cache.SerializedResponseCache;
+import io.github.alisa_salimianova.eshop.dto.request.BulkUpdateProductsRequest;
 import io.github.alisa_salimianova.eshop.dto.request.CreateProductRequest;
 import io.github.alisa_salimianova.eshop.dto.request.UpdateProductRequest;
+import io.github.alisa_salimianova.eshop.config.PaginationProperties;
 import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.dto.response.BulkUpdateReport;
+import io.github.alisa_salimianova.eshop.dto.response.CursorPage;
+import io.github.alisa_salimianova.eshop.dto.response.FacetedPage;
+import io.github.alisa_salimianova.eshop.dto.response.ImportReport;
 import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.encoding.JacksonProtobufHttpMessageConverter;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.pagination.ProductCursor;
+import io.github.alisa_salimianova.eshop.service.ProductBulkUpdateService;
+import io.github.alisa_salimianova.eshop.service.ProductExportService;
+import io.github.alisa_salimianova.eshop.service.ProductFilterService;
+import io.github.alisa_salimianova.eshop.service.ProductImportService;
 import io.github.alisa_salimianova.eshop.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -32,25 +67,66 @@ import java.util.List;
 @Tag(name = "Products", description = "Product management APIs")
 public class ProductController {
 
+    // Clients may keep responses but must revalidate them with If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+    // A strong validator must differ between content codings of the same resource
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+    // In converter order, the order in which content negotiation tries them
+    private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"),
+            JacksonProtobufHttpMessageConverter.PROTOBUF);
+
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
+    private final ProductFilterService productFilterService;
+    private final PaginationProperties paginationProperties;
+    private final SerializedResponseCache serializedResponseCache;
 
     @GetMapping
     @Operation(summary = "Get all active products")
-    public ResponseEntity<ApiResponseDto<List<ProductResponse>>> getAllActiveProducts() {
+    @ApiResponse(responseCode = "200", description = "Active products",
+            content = @Content(schema = @Schema(implementation = ApiResponseDto.class)))
+    public ResponseEntity<?> getAllActiveProducts(WebRequest request) {
+        Optional<MediaType> representation = negotiate(request);
+        Optional<String> version = productService.getCatalogETag();
+        Optional<String> etag = representationETag(version, representation);
+        boolean serialized = etag.isPresent() && serializedResponseCache.isEnabled() && isJson(representation);
+        if (etag.isPresent() && checkNotModified(request, etag.get(), serialized)) {
+            // 304 has already been written; nothing is loaded or serialized
+            return null;
+        }
+        if (serialized) {
+            SerializedBody body = serializedResponseCache.activeProducts(version.get(), productService::getAllActiveProducts);
+            return serialized(etag, body, request);
+        }
         List<ProductResponse> products = productService.getAllActiveProducts();
-        return ResponseEntity.ok(ApiResponseDto.success(products));
+        return withETag(etag).body(ApiResponseDto.success(products));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Product found"),
+            @ApiResponse(responseCode = "200", description = "Product found",
+                    content = @Content(schema = @Schema(implementation = ApiResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Product not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found")
     })
-    public ResponseEntity<ApiResponseDto<ProductResponse>> getProductById(
-            @PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
+        Optional<MediaType> representation = negotiate(request);
+        Optional<String> version = productService.getProductETag(id);
+        Optional<String> etag = representationETag(version, representation);
+        boolean serialized = etag.isPresent() && serializedResponseCache.isEnabled() && isJson(representation);
+        if (etag.isPresent() && checkNotModified(request, etag.get(), serialized)) {
+            return null;
+        }
+        if (serialized) {
+            SerializedBody body = serializedResponseCache.product(id, version.get(), () -> productService.getProductById(id));
+            return serialized(etag, body, request);
+        }
         ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(ApiResponseDto.success(product));
+        return withETag(etag).body(ApiResponseDto.success(product));
     }
 
     @GetMapping("/category/{category}")
@@ -63,11 +139,107 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponseDto.success(products));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Full-text search over name, description and manufacturer")
+    public ResponseEntity<ApiResponseDto<Page<ProductResponse>>> searchProducts(
+            @Parameter(description = "Search terms; all of them must match") @RequestParam @NotBlank String q,
+            @Parameter(description = "Pagination parameters")
+            Pageable pageable) {
+        Page<ProductResponse> products = productService.searchProducts(q, pageable);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/filter")
+    @Operation(summary = "Filter active products by facets and return facet counts")
+    public ResponseEntity<ApiResponseDto<FacetedPage<ProductResponse>>> filterProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String manufacturer,
+            @RequestParam(required = false) String minRating,
+            @RequestParam(required = false) String maxPrice,
+            @Parameter(description = "Pagination parameters")
+            Pageable pageable) {
+        Map<FacetDimension, String> criteria = new EnumMap<>(FacetDimension.class);
+        if (category != null) {
+            criteria.put(FacetDimension.CATEGORY, category);
+        }
+        if (manufacturer != null) {
+            criteria.put(FacetDimension.MANUFACTURER, manufacturer);
+        }
+        if (minRating != null) {
+            criteria.put(FacetDimension.RATING, minRating);
+        }
+        if (maxPrice != null) {
+            criteria.put(FacetDimension.PRICE, maxPrice);
+        }
+        FacetedPage<ProductResponse> products = productFilterService.filterProducts(criteria, pageable);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Get active products with cursor pagination")
+    public ResponseEntity<ApiResponseDto<CursorPage<ProductResponse>>> getActiveProductsAfter(
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "ID") ProductCursor.SortKey sort) {
+        CursorPage<ProductResponse> products = productService.getActiveProductsAfter(
+                after, paginationProperties.resolvePageSize(size), sort);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/category/{category}/cursor")
+    @Operation(summary = "Get products by category with cursor pagination")
+    public ResponseEntity<ApiResponseDto<CursorPage<ProductResponse>>> getProductsByCategoryAfter(
+            @PathVariable Category category,
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "ID") ProductCursor.SortKey sort) {
+        CursorPage<ProductResponse> products = productService.getProductsByCategoryAfter(
+                category, after, paginationProperties.resolvePageSize(size), sort);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Stream all active products as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportActiveProducts(
+            @RequestParam(defaultValue = "NDJSON") ProductExportService.Format format) {
+        MediaType contentType = format == ProductExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        String filename = "products." + format.name().toLowerCase();
+
+        StreamingResponseBody body = out -> productExportService.exportActiveProducts(format, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
     @GetMapping("/price/under")
     @Operation(summary = "Get products under specified price")
     public ResponseEntity<ApiResponseDto<List<ProductResponse>>> getProductsUnderPrice(
-            @RequestParam @Min(0) @Max(10000) BigDecimal maxPrice) {
-        List<ProductResponse> products = productService.getProductsUnderPrice(maxPrice);
+            @RequestParam @Min(0) @Max(10000) BigDecimal maxPrice,
+            @RequestParam(required = false) Category category) {
+        List<ProductResponse> products = productService.getProductsUnderPrice(maxPrice, category);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/price/between")
+    @Operation(summary = "Get products within a price range, cheapest first")
+    public ResponseEntity<ApiResponseDto<List<ProductResponse>>> getProductsInPriceRange(
+            @RequestParam @Min(0) BigDecimal minPrice,
+            @RequestParam @Min(0) BigDecimal maxPrice,
+            @RequestParam(required = false) Category category) {
+        List<ProductResponse> products = productService.getProductsInPriceRange(minPrice, maxPrice, category);
+        return ResponseEntity.ok(ApiResponseDto.success(products));
+    }
+
+    @GetMapping("/price/cheapest")
+    @Operation(summary = "Get the N cheapest products")
+    public ResponseEntity<ApiResponseDto<List<ProductResponse>>> getCheapestProducts(
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit,
+            @RequestParam(required = false) Category category) {
+        List<ProductResponse> products = productService.getCheapestProducts(limit, category);
         return ResponseEntity.ok(ApiResponseDto.success(products));
     }
 
@@ -81,6 +253,28 @@ public class ProductController {
                 .body(ApiResponseDto.success(product, "Product created successfully"));
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Bulk import products from a CSV or NDJSON upload")
+    public ResponseEntity<ApiResponseDto<ImportReport>> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "NDJSON") ProductExportService.Format format) throws IOException {
+        ImportReport report;
+        try (InputStream in = file.getInputStream()) {
+            report = productImportService.importProducts(format, in);
+        }
+        String message = "Imported " + report.getImported() + " of " + report.getTotalRows() + " products";
+        return ResponseEntity.ok(ApiResponseDto.success(report, message));
+    }
+
+    @PutMapping("/bulk")
+    @Operation(summary = "Update many products at once",
+            description = "Takes either a list of patches by id or a rule that reprices all active products of a category")
+    public ResponseEntity<ApiResponseDto<BulkUpdateReport>> bulkUpdateProducts(
+            @Valid @RequestBody BulkUpdateProductsRequest request) {
+        BulkUpdateReport report = productBulkUpdateService.update(request);
+        return ResponseEntity.ok(ApiResponseDto.success(report, "Updated " + report.getUpdated() + " products"));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update product")
     public ResponseEntity<ApiResponseDto<ProductResponse>> updateProduct(
@@ -105,4 +299,127 @@ public class ProductController {
         productService.rateProduct(id, rating);
         return ResponseEntity.ok(ApiResponseDto.success(null, "Rating submitted successfully"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Ответ из готовых байтов; gzip отдаётся, только если клиент его принимает и у тела есть сжатая копия.
+     */
+    private static ResponseEntity<SerializedEnvelope> serialized(Optional<String> etag, SerializedBody body,
+                                                                 WebRequest request) {
+        SerializedEnvelope envelope = SerializedEnvelope.success(body,
+                acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+        ResponseEntity.BodyBuilder builder = withETag(etag.map(tag -> envelope.isGzip() ? tag + GZIP_ETAG_SUFFIX : tag))
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (envelope.isGzip()) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(envelope);
+    }
+
+    /**
+     * 304, если клиент уже держит один из вариантов, которые мог бы получить сейчас:
+     * сжатый — только когда ответ идёт из готовых байтов и клиент принимает gzip.
+     * Несжатая копия годится любому клиенту.
+     */
+    private static boolean checkNotModified(WebRequest request, String etag, boolean serialized) {
+        List<String> variants = serialized && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                ? List.of(etag + GZIP_ETAG_SUFFIX, etag)
+                : List.of(etag);
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        List<String> held = new ArrayList<>();
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                held.add(tag.trim().replaceFirst("^W/", ""));
+            }
+        }
+        for (String variant : variants) {
+            if (held.contains("*") || held.contains("\"" + variant + "\"")) {
+                // Writes the 304 with the ETag of the variant the client holds
+                return request.checkNotModified(variant);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Представление, которое выберет согласование содержимого по Accept: готовые байты есть только в JSON,
+     * а CBOR, Smile и Protobuf пишут конвертеры. Пусто, если заголовок некорректен или ничего не подходит.
+     */
+    private static Optional<MediaType> negotiate(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return Optional.of(MediaType.APPLICATION_JSON);
+        }
+        try {
+            // Highest quality first, then the more specific type, as content negotiation orders them
+            List<MediaType> acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                    .thenComparing(MediaType::isWildcardType)
+                    .thenComparing(MediaType::isWildcardSubtype));
+            for (MediaType mediaType : acceptable) {
+                if (mediaType.getQualityValue() == 0) {
+                    break;
+                }
+                for (MediaType representation : REPRESENTATIONS) {
+                    if (mediaType.isCompatibleWith(representation)) {
+                        return Optional.of(representation);
+                    }
+                }
+            }
+            return Optional.empty();
+        } catch (InvalidMediaTypeException e) {
+            // Left to content negotiation to reject
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isJson(Optional<MediaType> representation) {
+        return representation.filter(MediaType.APPLICATION_JSON::equals).isPresent();
+    }
+
+    /**
+     * ETag конкретного представления: одна версия данных в JSON, CBOR, Smile и Protobuf — разные байты.
+     */
+    private static Optional<String> representationETag(Optional<String> version, Optional<MediaType> representation) {
+        return version.flatMap(tag -> representation.map(mediaType -> tag + "-" + mediaType.getSubtype()));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            // "gzip;q=0" explicitly refuses the coding; a malformed q counts as absent
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZeroQuality(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String value) {
+        try {
+            return Double.parseDouble(value.trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(Optional<String> etag) {
+        // The same URL is served as JSON or one of the binary encodings
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
+        etag.ifPresent(builder::eTag);
+        return builder;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.alisa_salimianova.eshop.controller;
+
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.encoding.ProtobufSchemas;
+import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/schemas")
+@RequiredArgsConstructor
+@Tag(name = "Schemas", description = "Schemas of the binary response encodings")
+public class SchemaController {
+
+    private final ProtobufSchemas protobufSchemas;
+
+    @GetMapping("/protobuf")
+    @Operation(summary = "List the names of the published protobuf schemas")
+    public ResponseEntity<ApiResponseDto<Set<String>>> getProtobufSchemaNames() {
+        return ResponseEntity.ok(ApiResponseDto.success(protobufSchemas.names()));
+    }
+
+    @GetMapping(value = "/protobuf/{name}", produces = MediaType.TEXT_PLAIN_VALUE)
+    @Operation(summary = "Get a protobuf schema as a .proto file",
+            description = "Protobuf responses name their schema in the X-Protobuf-Schema header")
+    public ResponseEntity<String> getProtobufSchema(@PathVariable String name) {
+        String source = protobufSchemas.byName(name)
+                .orElseThrow(() -> new ResourceNotFoundException("Protobuf schema", "name", name))
+                .getSource()
+                .toString();
+        return ResponseEntity.ok(source);
+    }
+}
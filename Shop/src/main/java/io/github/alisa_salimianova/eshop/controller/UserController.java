@@ -1,16 +1,22 @@
 package io.github.alisa_salimianova.eshop.controller;
 
 import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
 import io.github.alisa_salimianova.eshop.service.RecommendationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
 @RestController
 @RequestMapping("/api/v1/users")
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "Users", description = "User management APIs")
 public class UserController {
 
@@ -25,8 +31,10 @@ public class UserController {
 
     @GetMapping("/recommendations/top-rated")
     @Operation(summary = "Get top rated products")
-    public ResponseEntity<ApiResponseDto<?>> getTopRatedProducts() {
-        var topRated = recommendationService.getTopRatedProducts();
+    public ResponseEntity<ApiResponseDto<?>> getTopRatedProducts(
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit,
+            @RequestParam(required = false) Category category) {
+        var topRated = recommendationService.getTopRatedProducts(limit, category);
         return ResponseEntity.ok(ApiResponseDto.success(topRated));
     }
 }
\ No newline at end of file
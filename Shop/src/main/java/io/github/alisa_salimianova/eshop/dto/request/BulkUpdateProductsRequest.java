@@ -0,0 +1,44 @@
+package io.github.alisa_salimianova.eshop.dto.request;
+
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class BulkUpdateProductsRequest {
+
+    @Valid
+    @Size(max = 10000, message = "A bulk update cannot contain more than 10,000 patches")
+    private List<@NotNull ProductPatch> patches;
+
+    @Valid
+    private PriceRule rule;
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class ProductPatch extends UpdateProductRequest {
+
+        @NotNull(message = "Product id is required")
+        private Long id;
+
+        // Moves the product to another category
+        private Category category;
+    }
+
+    @Data
+    public static class PriceRule {
+
+        @NotNull(message = "Category is required")
+        private Category category;
+
+        @NotNull(message = "Price multiplier is required")
+        @DecimalMin(value = "0.01", message = "Price multiplier must be at least 0.01")
+        @DecimalMax(value = "10.00", message = "Price multiplier cannot exceed 10")
+        private BigDecimal priceMultiplier;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 public class CreateOrderRequest {
@@ -20,6 +21,9 @@ public class CreateOrderRequest {
     @Valid
     private List<OrderItem> items;
 
+    // Stock reserved earlier through /api/v1/inventory/holds; must cover exactly these items
+    private UUID holdId;
+
     @Data
     public static class OrderItem {
         @NotNull(message = "Product ID is required")
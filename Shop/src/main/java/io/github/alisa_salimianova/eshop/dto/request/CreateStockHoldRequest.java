@@ -0,0 +1,15 @@
+package io.github.alisa_salimianova.eshop.dto.request;
+
+import lombok.Data;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+@Data
+public class CreateStockHoldRequest {
+
+    @NotEmpty(message = "Hold must contain at least one item")
+    @Valid
+    private List<CreateOrderRequest.OrderItem> items;
+}
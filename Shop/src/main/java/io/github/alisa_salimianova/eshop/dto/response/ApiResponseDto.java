@@ -1,13 +1,19 @@
 package io.github.alisa_salimianova.eshop.dto.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ApiResponseDto<T> {
+    public static final String SUCCESS_MESSAGE = "Operation successful";
+
     private boolean success;
     private String message;
     private T data;
@@ -16,7 +22,7 @@ public class ApiResponseDto<T> {
     public static <T> ApiResponseDto<T> success(T data) {
         return ApiResponseDto.<T>builder()
                 .success(true)
-                .message("Operation successful")
+                .message(SUCCESS_MESSAGE)
                 .data(data)
                 .timestamp(LocalDateTime.now())
                 .build();
@@ -0,0 +1,13 @@
+package io.github.alisa_salimianova.eshop.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkUpdateReport {
+    private long updated;
+    private List<Long> notFound;
+}
@@ -0,0 +1,18 @@
+package io.github.alisa_salimianova.eshop.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class FacetedPage<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    // dimension -> value -> number of matching products
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,19 @@
+package io.github.alisa_salimianova.eshop.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ImportReport {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<RowError> errors;
+
+    public record RowError(long row, String sku, String message) {
+    }
+}
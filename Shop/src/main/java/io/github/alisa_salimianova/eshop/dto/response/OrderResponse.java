@@ -1,8 +1,10 @@
 package io.github.alisa_salimianova.eshop.dto.response;
 
 import io.github.alisa_salimianova.eshop.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,6 +12,8 @@ import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class OrderResponse {
     private Long id;
     private Long userId;
@@ -24,10 +28,13 @@ public class OrderResponse {
     private String shippingAddress;
     private String paymentMethod;
     private String deliveryMethod;
+    private String failureReason;
     private List<OrderItemResponse> items;
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class OrderItemResponse {
         private Long productId;
         private String productName;
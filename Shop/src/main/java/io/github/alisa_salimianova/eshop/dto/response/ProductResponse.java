@@ -1,14 +1,18 @@
 package io.github.alisa_salimianova.eshop.dto.response;
 
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ProductResponse {
     private Long id;
     private String name;
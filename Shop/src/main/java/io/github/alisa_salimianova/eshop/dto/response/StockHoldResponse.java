@@ -0,0 +1,20 @@
+package io.github.alisa_salimianova.eshop.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldResponse {
+    private UUID id;
+    private Map<Long, Integer> items;
+    private Instant expiresAt;
+}
@@ -0,0 +1,32 @@
+package io.github.alisa_salimianova.eshop.encoding;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+
+import java.util.Objects;
+
+/**
+ * Mix-in для {@link ApiResponseDto} в бинарных кодировках: без метки времени и без
+ * стандартного сообщения об успехе. Сообщения об ошибках и нестандартные сообщения сохраняются.
+ */
+@JsonIgnoreProperties("timestamp")
+public abstract class CompactEnvelope {
+
+    @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = DefaultMessageFilter.class)
+    abstract String getMessage();
+
+    // Jackson skips a value when the filter equals() it
+    static class DefaultMessageFilter {
+
+        @Override
+        public boolean equals(Object value) {
+            return ApiResponseDto.SUCCESS_MESSAGE.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(ApiResponseDto.SUCCESS_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.alisa_salimianova.eshop.encoding;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Пишет {@link ApiResponseDto} в protobuf по схеме, сгенерированной из типа ответа.
+ * Как и у конвертера Spring для protobuf-java, в заголовках ответа указаны схема и сообщение.
+ * Только для ответов: тела запросов по-прежнему принимаются в JSON.
+ */
+public class JacksonProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+    public static final String X_PROTOBUF_SCHEMA_HEADER = "X-Protobuf-Schema";
+    public static final String X_PROTOBUF_MESSAGE_HEADER = "X-Protobuf-Message";
+    public static final String SCHEMA_PATH = "/api/v1/schemas/protobuf/";
+
+    private final ProtobufSchemas schemas;
+
+    public JacksonProtobufHttpMessageConverter(ProtobufSchemas schemas) {
+        super(PROTOBUF);
+        this.schemas = schemas;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponseDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!super.canWrite(type, clazz, mediaType)) {
+            return false;
+        }
+        // Declared types are checked up front so negotiation can pick another format;
+        // wildcards like ResponseEntity<?> are resolved from the value when it is written
+        JavaType declared = declaredType(type);
+        return declared == null || schemas.resolve(declared).isPresent();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        JavaType declared = declaredType(type);
+        JavaType javaType = declared != null ? declared : valueType((ApiResponseDto<?>) value);
+        ProtobufSchemas.NamedSchema schema = schemas.resolve(javaType)
+                .orElseThrow(() -> new HttpMessageNotWritableException("No protobuf schema for " + javaType));
+        outputMessage.getHeaders().set(X_PROTOBUF_SCHEMA_HEADER, SCHEMA_PATH + schema.name());
+        outputMessage.getHeaders().set(X_PROTOBUF_MESSAGE_HEADER, schema.schema().getRootType().getName());
+        schemas.mapper().writerFor(javaType)
+                .with(schema.schema())
+                .writeValue(outputMessage.getBody(), value);
+    }
+
+    private JavaType declaredType(Type type) {
+        if (type == null) {
+            return null;
+        }
+        JavaType javaType = TypeFactory.defaultInstance().constructType(type);
+        return isConcrete(javaType) ? javaType : null;
+    }
+
+    private JavaType valueType(ApiResponseDto<?> value) {
+        TypeFactory types = TypeFactory.defaultInstance();
+        Object data = value.getData();
+        if (data == null) {
+            return schemas.envelope(types.constructType(Void.class));
+        }
+        if (data instanceof List<?> list) {
+            // Any element type encodes an empty list as nothing at all
+            Class<?> element = list.isEmpty() ? String.class : list.get(0).getClass();
+            return schemas.envelope(types.constructCollectionType(List.class, element));
+        }
+        return schemas.envelope(types.constructType(data.getClass()));
+    }
+
+    private static boolean isConcrete(JavaType type) {
+        if (type.isJavaLangObject() || type.getRawClass().getTypeParameters().length != type.containedTypeCount()) {
+            return false;
+        }
+        for (int i = 0; i < type.containedTypeCount(); i++) {
+            if (!isConcrete(type.containedType(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
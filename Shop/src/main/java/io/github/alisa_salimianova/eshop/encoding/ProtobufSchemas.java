@@ -0,0 +1,121 @@
+package io.github.alisa_salimianova.eshop.encoding;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schemagen.ProtobufSchemaGenerator;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.dto.response.CursorPage;
+import io.github.alisa_salimianova.eshop.dto.response.OrderResponse;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Protobuf-схемы конвертов ответа, сгенерированные Jackson по Java-типам.
+ * Схема строится один раз на тип и публикуется по имени, чтобы клиенты могли сгенерировать код.
+ */
+@Component
+@Slf4j
+public class ProtobufSchemas {
+
+    private final ObjectMapper mapper;
+    private final Map<JavaType, Optional<NamedSchema>> byType = new ConcurrentHashMap<>();
+    private final Map<String, ProtobufSchema> byName = new ConcurrentSkipListMap<>();
+
+    public ProtobufSchemas(Jackson2ObjectMapperBuilder builder) {
+        this.mapper = builder.factory(new ProtobufFactory())
+                .mixIn(ApiResponseDto.class, CompactEnvelope.class)
+                // Protobuf has no decimal type and a double would round prices
+                .serializerByType(BigDecimal.class, ToStringSerializer.instance)
+                // Dates written as arrays have no protobuf form
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        // Payloads of the catalog and order APIs are published before the first request
+        TypeFactory types = mapper.getTypeFactory();
+        List.of(envelope(types.constructType(ProductResponse.class)),
+                envelope(types.constructCollectionType(List.class, ProductResponse.class)),
+                envelope(types.constructParametricType(CursorPage.class, ProductResponse.class)),
+                envelope(types.constructType(OrderResponse.class)),
+                envelope(types.constructCollectionType(List.class, OrderResponse.class)))
+                .forEach(this::resolve);
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public JavaType envelope(JavaType data) {
+        return mapper.getTypeFactory().constructParametricType(ApiResponseDto.class, data);
+    }
+
+    /**
+     * Схема для типа или пусто, если тип не выражается в protobuf (например, Map).
+     */
+    public Optional<NamedSchema> resolve(JavaType type) {
+        return byType.computeIfAbsent(type, this::generate);
+    }
+
+    public Optional<ProtobufSchema> byName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    public Set<String> names() {
+        return byName.keySet();
+    }
+
+    private Optional<NamedSchema> generate(JavaType type) {
+        ProtobufSchemaGenerator generator = new ProtobufSchemaGenerator();
+        try {
+            mapper.acceptJsonFormatVisitor(withoutVoid(type), generator);
+            NamedSchema schema = new NamedSchema(nameOf(type), generator.getGeneratedSchema());
+            byName.put(schema.name(), schema.schema());
+            return Optional.of(schema);
+        } catch (JsonMappingException | RuntimeException e) {
+            log.debug("No protobuf schema for {}: {}", type, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Void has no protobuf form; a string field that is never set encodes to the same bytes
+    private JavaType withoutVoid(JavaType type) {
+        if (type.hasRawClass(Void.class)) {
+            return mapper.getTypeFactory().constructType(String.class);
+        }
+        if (type.containedTypeCount() == 0) {
+            return type;
+        }
+        JavaType[] parameters = type.getBindings().getTypeParameters().stream()
+                .map(this::withoutVoid)
+                .toArray(JavaType[]::new);
+        return mapper.getTypeFactory().constructParametricType(type.getRawClass(), parameters);
+    }
+
+    // ApiResponseDto<List<ProductResponse>> -> ApiResponseDto-List-ProductResponse
+    private static String nameOf(JavaType type) {
+        if (type.containedTypeCount() == 0) {
+            return type.getRawClass().getSimpleName();
+        }
+        return type.getRawClass().getSimpleName() + "-" + type.getBindings().getTypeParameters().stream()
+                .map(ProtobufSchemas::nameOf)
+                .collect(Collectors.joining("-"));
+    }
+
+    public record NamedSchema(String name, ProtobufSchema schema) {
+    }
+}
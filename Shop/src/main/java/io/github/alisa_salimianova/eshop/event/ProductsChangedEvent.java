@@ -0,0 +1,16 @@
+package io.github.alisa_salimianova.eshop.event;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+
+import java.util.List;
+
+/**
+ * Событие об изменении товаров: содержит их актуальное состояние после записи.
+ * Неактивный товар в списке означает удаление из витрины.
+ */
+public record ProductsChangedEvent(List<ProductResponse> products) {
+
+    public static ProductsChangedEvent of(ProductResponse product) {
+        return new ProductsChangedEvent(List.of(product));
+    }
+}
@@ -2,6 +2,7 @@ package io.github.alisa_salimianova.eshop.exception;
 
 import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -11,7 +12,9 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 @Slf4j
@@ -32,10 +35,26 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(InsufficientStockException.class)
-    public ResponseEntity<ApiResponseDto<Void>> handleInsufficientStockException(
+    public ResponseEntity<ApiResponseDto<List<Long>>> handleInsufficientStockException(
             InsufficientStockException ex) {
         log.error("Insufficient stock: {}", ex.getMessage());
 
+        // The ids of the items that could not be reserved, so the client can fix exactly those
+        ApiResponseDto<List<Long>> response = ApiResponseDto.<List<Long>>builder()
+                .success(false)
+                .message(ex.getMessage())
+                .data(ex.getProductIds())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ApiResponseDto<Void>> handleInvalidRequestException(
+            InvalidRequestException ex) {
+        log.error("Bad request: {}", ex.getMessage());
+
         ApiResponseDto<Void> response = ApiResponseDto.<Void>builder()
                 .success(false)
                 .message(ex.getMessage())
@@ -45,6 +64,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiResponseDto<Void>> handleRejectedExecutionException(
+            RejectedExecutionException ex) {
+        log.warn("Request rejected, queue is full: {}", ex.getMessage());
+
+        ApiResponseDto<Void> response = ApiResponseDto.<Void>builder()
+                .success(false)
+                .message("Service is busy, please retry later")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponseDto<Map<String, String>>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
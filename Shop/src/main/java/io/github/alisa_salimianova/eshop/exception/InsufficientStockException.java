@@ -1,7 +1,22 @@
 package io.github.alisa_salimianova.eshop.exception;
 
+import java.util.List;
+
 public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+
     public InsufficientStockException(String message) {
         super(message);
+        this.productIds = List.of();
+    }
+
+    public InsufficientStockException(List<Long> productIds) {
+        super("Insufficient stock for products: " + productIds);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
     }
-}
\ No newline at end of file
+}
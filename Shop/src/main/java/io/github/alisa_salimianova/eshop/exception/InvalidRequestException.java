@@ -0,0 +1,15 @@
+package io.github.alisa_salimianova.eshop.exception;
+
+/**
+ * Ошибка во входных данных клиента (курсор, фильтр, тело запроса), которая отдаётся как 400.
+ * Прочие {@link IllegalArgumentException} остаются ошибками сервера.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,258 @@
+package io.github.alisa_salimianova.eshop.facet;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемый набор сжатых битовых карт по id товаров для каждого значения фасета:
+ * категории, производителя, диапазона рейтинга и диапазона цены.
+ * Комбинированный фильтр — пересечение карт, счётчики фасетов — мощности пересечений.
+ * Изменения копируют только затронутые карты, поэтому читатели работают без блокировок.
+ */
+public final class FacetBitmaps {
+
+    public static final int RATING_BUCKETS = 5;
+
+    private static final PriceBucket[] PRICE_BUCKETS = PriceBucket.values();
+
+    private final CatalogSnapshot snapshot;
+    private final RoaringBitmap all;
+    private final Map<Category, RoaringBitmap> byCategory;
+    private final TreeMap<String, RoaringBitmap> byManufacturer;
+    private final RoaringBitmap[] byRating;
+    private final RoaringBitmap[] byPrice;
+
+    private FacetBitmaps(CatalogSnapshot snapshot, RoaringBitmap all, Map<Category, RoaringBitmap> byCategory,
+                         TreeMap<String, RoaringBitmap> byManufacturer, RoaringBitmap[] byRating,
+                         RoaringBitmap[] byPrice) {
+        this.snapshot = snapshot;
+        this.all = all;
+        this.byCategory = byCategory;
+        this.byManufacturer = byManufacturer;
+        this.byRating = byRating;
+        this.byPrice = byPrice;
+    }
+
+    public static FacetBitmaps build(CatalogSnapshot snapshot) {
+        Editor editor = new Editor(empty(snapshot));
+        for (int row = 0; row < snapshot.size(); row++) {
+            editor.add(snapshot, row);
+        }
+        return editor.build(snapshot);
+    }
+
+    /**
+     * Возвращает карты для нового снимка: строки изменённых товаров убираются из карт
+     * по значениям прежнего снимка и добавляются по значениям нового.
+     */
+    public FacetBitmaps withChanges(CatalogSnapshot next, Collection<ProductResponse> changes) {
+        Editor editor = new Editor(this);
+        for (ProductResponse change : changes) {
+            int oldRow = snapshot.indexOf(change.getId());
+            if (oldRow >= 0) {
+                editor.remove(snapshot, oldRow);
+            }
+            int newRow = next.indexOf(change.getId());
+            if (newRow >= 0) {
+                editor.add(next, newRow);
+            }
+        }
+        return editor.build(next);
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public RoaringBitmap all() {
+        return all;
+    }
+
+    public RoaringBitmap category(Category category) {
+        return byCategory.getOrDefault(category, new RoaringBitmap());
+    }
+
+    public RoaringBitmap manufacturer(String manufacturer) {
+        return byManufacturer.getOrDefault(manufacturer, new RoaringBitmap());
+    }
+
+    public RoaringBitmap priceAtMost(long maxCents) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (PriceBucket bucket : PRICE_BUCKETS) {
+            RoaringBitmap ids = byPrice[bucket.ordinal()];
+            if (bucket.getUpperCents() <= maxCents + 1) {
+                result.or(ids);
+            } else if (bucket.getLowerCents() <= maxCents) {
+                // Only the bucket containing the bound needs a per-product check
+                ids.forEach((int id) -> {
+                    if (snapshot.priceCentsAt(snapshot.indexOf(id)) <= maxCents) {
+                        result.add(id);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap ratingAtLeast(double minRating) {
+        RoaringBitmap result = new RoaringBitmap();
+        int partial = ratingBucket(minRating);
+        for (int bucket = partial + 1; bucket < RATING_BUCKETS; bucket++) {
+            result.or(byRating[bucket]);
+        }
+        byRating[partial].forEach((int id) -> {
+            if (snapshot.ratingAt(snapshot.indexOf(id)) >= minRating) {
+                result.add(id);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Счётчики значений каждого измерения внутри результата; нулевые значения опускаются.
+     */
+    public Map<String, Map<String, Long>> counts(RoaringBitmap result) {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        Map<String, Long> categories = new LinkedHashMap<>();
+        byCategory.forEach((category, ids) -> putCount(categories, category.name(), result, ids));
+        facets.put(key(FacetDimension.CATEGORY), categories);
+
+        Map<String, Long> manufacturers = new LinkedHashMap<>();
+        byManufacturer.forEach((manufacturer, ids) -> putCount(manufacturers, manufacturer, result, ids));
+        facets.put(key(FacetDimension.MANUFACTURER), manufacturers);
+
+        Map<String, Long> ratings = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+            putCount(ratings, bucket + "-" + (bucket + 1), result, byRating[bucket]);
+        }
+        facets.put(key(FacetDimension.RATING), ratings);
+
+        Map<String, Long> prices = new LinkedHashMap<>();
+        for (PriceBucket bucket : PRICE_BUCKETS) {
+            putCount(prices, bucket.getLabel(), result, byPrice[bucket.ordinal()]);
+        }
+        facets.put(key(FacetDimension.PRICE), prices);
+        return facets;
+    }
+
+    /**
+     * Id товаров хранятся в 32-битных картах; identity-ключи каталога в этот диапазон укладываются.
+     */
+    public static int bitmapId(long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    static int ratingBucket(double rating) {
+        return Math.max(0, Math.min(RATING_BUCKETS - 1, (int) Math.floor(rating)));
+    }
+
+    private static String key(FacetDimension dimension) {
+        return dimension.name().toLowerCase();
+    }
+
+    private static void putCount(Map<String, Long> counts, String value, RoaringBitmap result, RoaringBitmap ids) {
+        long count = RoaringBitmap.andCardinality(result, ids);
+        if (count > 0) {
+            counts.put(value, count);
+        }
+    }
+
+    private static FacetBitmaps empty(CatalogSnapshot snapshot) {
+        RoaringBitmap[] byRating = new RoaringBitmap[RATING_BUCKETS];
+        RoaringBitmap[] byPrice = new RoaringBitmap[PRICE_BUCKETS.length];
+        for (int i = 0; i < byRating.length; i++) {
+            byRating[i] = new RoaringBitmap();
+        }
+        for (int i = 0; i < byPrice.length; i++) {
+            byPrice[i] = new RoaringBitmap();
+        }
+        return new FacetBitmaps(snapshot, new RoaringBitmap(), new EnumMap<>(Category.class),
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER), byRating, byPrice);
+    }
+
+    /**
+     * Копирует карту при первой записи в неё, так что опубликованный набор остаётся нетронутым.
+     */
+    private static final class Editor {
+        private final Set<RoaringBitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final RoaringBitmap all;
+        private final Map<Category, RoaringBitmap> byCategory;
+        private final TreeMap<String, RoaringBitmap> byManufacturer;
+        private final RoaringBitmap[] byRating;
+        private final RoaringBitmap[] byPrice;
+
+        private Editor(FacetBitmaps source) {
+            all = own(source.all);
+            byCategory = new EnumMap<>(source.byCategory);
+            byManufacturer = new TreeMap<>(source.byManufacturer);
+            byRating = source.byRating.clone();
+            byPrice = source.byPrice.clone();
+        }
+
+        private void add(CatalogSnapshot source, int row) {
+            int id = bitmapId(source.idAt(row));
+            all.add(id);
+            byCategory.compute(source.categoryAt(row), (category, ids) -> withId(ids, id));
+            if (source.manufacturerAt(row) != null) {
+                byManufacturer.compute(source.manufacturerAt(row), (manufacturer, ids) -> withId(ids, id));
+            }
+            int rating = ratingBucket(source.ratingAt(row));
+            byRating[rating] = withId(byRating[rating], id);
+            int price = PriceBucket.of(source.priceCentsAt(row)).ordinal();
+            byPrice[price] = withId(byPrice[price], id);
+        }
+
+        private void remove(CatalogSnapshot source, int row) {
+            int id = bitmapId(source.idAt(row));
+            all.remove(id);
+            byCategory.computeIfPresent(source.categoryAt(row), (category, ids) -> withoutId(ids, id));
+            if (source.manufacturerAt(row) != null) {
+                byManufacturer.computeIfPresent(source.manufacturerAt(row), (manufacturer, ids) -> withoutId(ids, id));
+            }
+            int rating = ratingBucket(source.ratingAt(row));
+            byRating[rating] = own(byRating[rating]);
+            byRating[rating].remove(id);
+            int price = PriceBucket.of(source.priceCentsAt(row)).ordinal();
+            byPrice[price] = own(byPrice[price]);
+            byPrice[price].remove(id);
+        }
+
+        private RoaringBitmap withId(RoaringBitmap ids, int id) {
+            RoaringBitmap target = ids == null ? own(new RoaringBitmap()) : own(ids);
+            target.add(id);
+            return target;
+        }
+
+        private RoaringBitmap withoutId(RoaringBitmap ids, int id) {
+            RoaringBitmap target = own(ids);
+            target.remove(id);
+            // Returning null drops manufacturers and categories that no longer have products
+            return target.isEmpty() ? null : target;
+        }
+
+        private RoaringBitmap own(RoaringBitmap ids) {
+            if (owned.contains(ids)) {
+                return ids;
+            }
+            RoaringBitmap copy = ids.clone();
+            owned.add(copy);
+            return copy;
+        }
+
+        private FacetBitmaps build(CatalogSnapshot snapshot) {
+            owned.forEach(RoaringBitmap::runOptimize);
+            return new FacetBitmaps(snapshot, all, byCategory, byManufacturer, byRating, byPrice);
+        }
+    }
+}
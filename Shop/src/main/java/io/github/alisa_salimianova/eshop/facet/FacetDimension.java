@@ -0,0 +1,11 @@
+package io.github.alisa_salimianova.eshop.facet;
+
+/**
+ * Измерения фасетного поиска; имя в нижнем регистре используется как ключ счётчиков в ответе.
+ */
+public enum FacetDimension {
+    CATEGORY,
+    MANUFACTURER,
+    RATING,
+    PRICE
+}
@@ -0,0 +1,36 @@
+package io.github.alisa_salimianova.eshop.facet;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogListener;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Держит актуальные {@link FacetBitmaps} для текущего снимка витрины.
+ */
+@Component
+@Slf4j
+public class FacetIndex implements CatalogListener {
+
+    private volatile FacetBitmaps bitmaps;
+
+    public Optional<FacetBitmaps> current() {
+        return Optional.ofNullable(bitmaps);
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        bitmaps = FacetBitmaps.build(snapshot);
+        log.info("Facet bitmaps built for {} products", snapshot.size());
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        FacetBitmaps current = bitmaps;
+        bitmaps = current != null ? current.withChanges(snapshot, changes) : FacetBitmaps.build(snapshot);
+    }
+}
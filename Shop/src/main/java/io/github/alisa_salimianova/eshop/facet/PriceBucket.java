@@ -0,0 +1,45 @@
+package io.github.alisa_salimianova.eshop.facet;
+
+/**
+ * Ценовые диапазоны фасета; нижняя граница включается, верхняя нет. Значения в копейках.
+ */
+public enum PriceBucket {
+    UNDER_50(0, 5_000, "0-50"),
+    FROM_50_TO_100(5_000, 10_000, "50-100"),
+    FROM_100_TO_500(10_000, 50_000, "100-500"),
+    FROM_500_TO_1000(50_000, 100_000, "500-1000"),
+    FROM_1000(100_000, Long.MAX_VALUE, "1000+");
+
+    private static final PriceBucket[] BUCKETS = values();
+
+    private final long lowerCents;
+    private final long upperCents;
+    private final String label;
+
+    PriceBucket(long lowerCents, long upperCents, String label) {
+        this.lowerCents = lowerCents;
+        this.upperCents = upperCents;
+        this.label = label;
+    }
+
+    public long getLowerCents() {
+        return lowerCents;
+    }
+
+    public long getUpperCents() {
+        return upperCents;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static PriceBucket of(long cents) {
+        for (PriceBucket bucket : BUCKETS) {
+            if (cents < bucket.upperCents) {
+                return bucket;
+            }
+        }
+        return FROM_1000;
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.alisa_salimianova.eshop.filter;
+
+import io.github.alisa_salimianova.eshop.facet.FacetBitmaps;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Типизированное дерево условий фильтрации товаров. Критерии разбираются один раз,
+ * после чего дерево компилируется в нужную форму: битовую карту для витрины
+ * или {@link Specification} для базы.
+ */
+public sealed interface ProductFilter {
+
+    RoaringBitmap toBitmap(FacetBitmaps facets);
+
+    Specification<Product> toSpecification();
+
+    static ProductFilter and(List<ProductFilter> filters) {
+        return filters.size() == 1 ? filters.get(0) : new And(List.copyOf(filters));
+    }
+
+    record And(List<ProductFilter> filters) implements ProductFilter {
+
+        @Override
+        public RoaringBitmap toBitmap(FacetBitmaps facets) {
+            RoaringBitmap result = facets.all().clone();
+            filters.forEach(filter -> result.and(filter.toBitmap(facets)));
+            return result;
+        }
+
+        @Override
+        public Specification<Product> toSpecification() {
+            return filters.stream()
+                    .map(ProductFilter::toSpecification)
+                    .reduce(Specification.where(null), Specification::and);
+        }
+    }
+
+    record CategoryIs(Category category) implements ProductFilter {
+
+        @Override
+        public RoaringBitmap toBitmap(FacetBitmaps facets) {
+            return facets.category(category);
+        }
+
+        @Override
+        public Specification<Product> toSpecification() {
+            return (root, query, cb) -> cb.equal(root.get("category"), category);
+        }
+    }
+
+    record ManufacturerIs(String manufacturer) implements ProductFilter {
+
+        @Override
+        public RoaringBitmap toBitmap(FacetBitmaps facets) {
+            return facets.manufacturer(manufacturer);
+        }
+
+        @Override
+        public Specification<Product> toSpecification() {
+            String folded = manufacturer.toLowerCase(Locale.ROOT);
+            return (root, query, cb) -> cb.equal(cb.lower(root.get("manufacturer")), folded);
+        }
+    }
+
+    record MinRating(double rating) implements ProductFilter {
+
+        @Override
+        public RoaringBitmap toBitmap(FacetBitmaps facets) {
+            return facets.ratingAtLeast(rating);
+        }
+
+        @Override
+        public Specification<Product> toSpecification() {
+            return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("rating"), rating);
+        }
+    }
+
+    record MaxPrice(BigDecimal price, long cents) implements ProductFilter {
+
+        @Override
+        public RoaringBitmap toBitmap(FacetBitmaps facets) {
+            return facets.priceAtMost(cents);
+        }
+
+        @Override
+        public Specification<Product> toSpecification() {
+            return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), price);
+        }
+    }
+}
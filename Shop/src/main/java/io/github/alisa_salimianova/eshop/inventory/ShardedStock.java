@@ -0,0 +1,231 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Остаток популярного товара, разложенный по строкам inventory_buckets (products.stock_sharded = true).
+ * Списание берёт случайную корзину и при нехватке переходит к следующим, так что одновременные
+ * заказы одного товара блокируют разные строки. Работает в транзакции вызывающего кода.
+ * products.stock_quantity таких товаров — сумма корзин, её переносит {@link StockRebalancer}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardedStock {
+
+    private static final String SHARDED_SQL =
+            "SELECT id FROM products WHERE id IN (:ids) AND stock_sharded = true";
+
+    private static final String TAKE_SQL = """
+            UPDATE inventory_buckets
+            SET quantity = quantity - :quantity
+            WHERE product_id = :productId AND bucket = :bucket AND quantity >= :quantity""";
+
+    private static final String ADD_SQL = """
+            UPDATE inventory_buckets
+            SET quantity = quantity + :quantity
+            WHERE product_id = :productId AND bucket = :bucket""";
+
+    private static final String LOCK_BUCKETS_SQL = """
+            SELECT bucket, quantity FROM inventory_buckets
+            WHERE product_id = :productId
+            ORDER BY bucket
+            FOR UPDATE""";
+
+    private static final String SET_SQL = """
+            UPDATE inventory_buckets
+            SET quantity = :quantity
+            WHERE product_id = :productId AND bucket = :bucket""";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_buckets (product_id, bucket, quantity) VALUES (:productId, :bucket, :quantity)";
+
+    private static final String SUM_SQL = """
+            SELECT product_id, SUM(quantity) AS quantity
+            FROM inventory_buckets
+            WHERE product_id IN (:ids)
+            GROUP BY product_id""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventoryProperties properties;
+
+    public boolean isEnabled() {
+        return properties.getSharding().isEnabled();
+    }
+
+    /**
+     * @return те из товаров, остаток которых разложен по корзинам
+     */
+    public Set<Long> sharded(Collection<Long> productIds, boolean activeOnly) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        String sql = activeOnly ? SHARDED_SQL + " AND active = true" : SHARDED_SQL;
+        return new HashSet<>(jdbcTemplate.queryForList(sql, new MapSqlParameterSource("ids", productIds), Long.class));
+    }
+
+    /**
+     * Списывает товары, разложенные по корзинам (см. {@link #sharded}).
+     *
+     * @return товары, которых не хватило
+     */
+    public List<Long> take(Map<Long, Integer> quantities) {
+        return forEachProduct(quantities, this::takeFromAny);
+    }
+
+    public void add(Map<Long, Integer> quantities) {
+        forEachProduct(quantities, (productId, quantity) -> {
+            addToAny(productId, quantity);
+            return true;
+        });
+    }
+
+    /**
+     * Списывает без проверки остатка (продажа уже проверена), при нехватке корзина уходит в минус.
+     */
+    public void subtract(Map<Long, Integer> quantities) {
+        forEachProduct(quantities, (productId, quantity) -> {
+            if (!takeFromAny(productId, quantity)) {
+                addToAny(productId, -quantity);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Задаёт новый остаток тем из товаров, что разложены по корзинам (правка остатка администратором).
+     */
+    public void overwrite(Map<Long, Integer> quantities) {
+        Set<Long> sharded = sharded(quantities.keySet(), false);
+        Map<Long, Integer> split = new TreeMap<>(quantities);
+        split.keySet().retainAll(sharded);
+        forEachProduct(split, (productId, quantity) -> {
+            List<Integer> buckets = new ArrayList<>(lockBuckets(productId).keySet());
+            distribute(productId, buckets, quantity, SET_SQL);
+            return true;
+        });
+    }
+
+    /**
+     * Раскладывает остаток товара по корзинам; строка products должна быть заблокирована вызывающим кодом.
+     */
+    void shard(Long productId, int stock) {
+        List<Integer> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < properties.getSharding().getBuckets(); bucket++) {
+            buckets.add(bucket);
+        }
+        distribute(productId, buckets, stock, INSERT_SQL);
+    }
+
+    /**
+     * Выравнивает корзины товара, чтобы списания снова попадали в непустую корзину с первой попытки.
+     */
+    void rebalance(Long productId) {
+        Map<Integer, Integer> buckets = lockBuckets(productId);
+        int stock = buckets.values().stream().mapToInt(Integer::intValue).sum();
+        distribute(productId, new ArrayList<>(buckets.keySet()), stock, SET_SQL);
+    }
+
+    /**
+     * Текущий остаток товаров как сумма корзин; товаров без корзин в результате нет.
+     */
+    public Map<Long, Integer> stock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new TreeMap<>();
+        if (!productIds.isEmpty()) {
+            jdbcTemplate.query(SUM_SQL, new MapSqlParameterSource("ids", productIds), rs -> {
+                stock.put(rs.getLong("product_id"), rs.getInt("quantity"));
+            });
+        }
+        return stock;
+    }
+
+    private List<Long> forEachProduct(Map<Long, Integer> quantities, BucketUpdate update) {
+        List<Long> failed = new ArrayList<>();
+        // Same id order as the single-row path, so orders over the same products cannot deadlock
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (!update.apply(productId, quantity)) {
+                failed.add(productId);
+            }
+        });
+        return failed;
+    }
+
+    private boolean takeFromAny(Long productId, int quantity) {
+        int count = properties.getSharding().getBuckets();
+        int start = randomBucket();
+        for (int i = 0; i < count; i++) {
+            MapSqlParameterSource parameters = bucketParameters(productId, (start + i) % count, quantity);
+            if (jdbcTemplate.update(TAKE_SQL, parameters) == 1) {
+                return true;
+            }
+        }
+        // No single bucket holds enough: take what each one has, under a lock on all of them
+        Map<Integer, Integer> buckets = lockBuckets(productId);
+        if (buckets.values().stream().mapToInt(Integer::intValue).sum() < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (Map.Entry<Integer, Integer> bucket : buckets.entrySet()) {
+            int taken = Math.min(remaining, Math.max(0, bucket.getValue()));
+            if (taken > 0) {
+                jdbcTemplate.update(SET_SQL, bucketParameters(productId, bucket.getKey(), bucket.getValue() - taken));
+                remaining -= taken;
+            }
+        }
+        return true;
+    }
+
+    private void addToAny(Long productId, int quantity) {
+        // Bucket 0 always exists, even if the product was sharded with a different bucket count
+        if (jdbcTemplate.update(ADD_SQL, bucketParameters(productId, randomBucket(), quantity)) == 0) {
+            jdbcTemplate.update(ADD_SQL, bucketParameters(productId, 0, quantity));
+        }
+    }
+
+    private Map<Integer, Integer> lockBuckets(Long productId) {
+        Map<Integer, Integer> buckets = new TreeMap<>();
+        jdbcTemplate.query(LOCK_BUCKETS_SQL, new MapSqlParameterSource("productId", productId), rs -> {
+            buckets.put(rs.getInt("bucket"), rs.getInt("quantity"));
+        });
+        return buckets;
+    }
+
+    private void distribute(Long productId, List<Integer> buckets, int stock, String sql) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] rows = new MapSqlParameterSource[buckets.size()];
+        for (int i = 0; i < rows.length; i++) {
+            int share = stock / rows.length + (i < stock % rows.length ? 1 : 0);
+            rows[i] = bucketParameters(productId, buckets.get(i), share);
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private int randomBucket() {
+        return ThreadLocalRandom.current().nextInt(properties.getSharding().getBuckets());
+    }
+
+    private static MapSqlParameterSource bucketParameters(Long productId, int bucket, int quantity) {
+        return new MapSqlParameterSource("productId", productId)
+                .addValue("bucket", bucket)
+                .addValue("quantity", quantity);
+    }
+
+    @FunctionalInterface
+    private interface BucketUpdate {
+        boolean apply(Long productId, int quantity);
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Временно отложенные под покупателя единицы товаров: product id -> количество.
+ */
+public record StockHold(UUID id, Map<Long, Integer> items, Instant expiresAt) {
+
+    public StockHold {
+        items = Map.copyOf(items);
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
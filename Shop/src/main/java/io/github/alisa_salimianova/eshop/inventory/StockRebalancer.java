@@ -0,0 +1,118 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Фоновое обслуживание товаров с остатком в корзинах ({@link ShardedStock}):
+ * раскладывает по корзинам товары с большим остатком, выравнивает опустевшие корзины
+ * и переносит сумму корзин в products.stock_quantity, откуда её читают витрина и кэши.
+ * Выравнивание и перенос работают и при выключенном режиме, пока у товаров остаются корзины.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockRebalancer {
+
+    private static final int SHARD_BATCH_SIZE = 100;
+
+    private static final String SHARD_CANDIDATES_SQL = """
+            SELECT id FROM products
+            WHERE stock_sharded = false AND active = true AND stock_quantity >= :minStock
+            ORDER BY id
+            LIMIT :limit""";
+
+    // Locks the row, so a concurrent single-row decrement either commits first or sees the flag
+    private static final String LOCK_PRODUCT_SQL =
+            "SELECT stock_quantity FROM products WHERE id = :id AND stock_sharded = false FOR UPDATE";
+
+    private static final String MARK_SHARDED_SQL = "UPDATE products SET stock_sharded = true WHERE id = :id";
+
+    // The smallest bucket is below half of the average while there is enough stock to go round
+    private static final String UNEVEN_SQL = """
+            SELECT product_id FROM inventory_buckets
+            GROUP BY product_id
+            HAVING SUM(quantity) >= COUNT(*) AND MIN(quantity) * 2 * COUNT(*) < SUM(quantity)""";
+
+    private static final String STALE_TOTALS_SQL = """
+            SELECT p.id FROM products p
+            JOIN inventory_buckets b ON b.product_id = p.id
+            WHERE p.stock_sharded = true
+            GROUP BY p.id, p.stock_quantity
+            HAVING SUM(b.quantity) <> p.stock_quantity""";
+
+    private static final String ROLL_UP_SQL = """
+            UPDATE products
+            SET stock_quantity = (SELECT SUM(b.quantity) FROM inventory_buckets b WHERE b.product_id = products.id),
+                updated_at = :now
+            WHERE id IN (:ids)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardedStock shardedStock;
+    private final InventoryProperties properties;
+    private final ProductRepository productRepository;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Scheduled(fixedDelayString = "${app.inventory.sharding.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        if (properties.getSharding().isEnabled()) {
+            shardHotProducts();
+        }
+        // One short transaction per product, so decrements wait for a single product at a time
+        List<Long> uneven = jdbcTemplate.getJdbcTemplate().queryForList(UNEVEN_SQL, Long.class);
+        uneven.forEach(productId -> transactionTemplate.executeWithoutResult(status ->
+                shardedStock.rebalance(productId)));
+        if (!uneven.isEmpty()) {
+            log.debug("Rebalanced stock buckets of {} products", uneven.size());
+        }
+        rollUp();
+    }
+
+    private void shardHotProducts() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("minStock", properties.getSharding().getMinStock())
+                .addValue("limit", SHARD_BATCH_SIZE);
+        for (Long productId : jdbcTemplate.queryForList(SHARD_CANDIDATES_SQL, parameters, Long.class)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                MapSqlParameterSource id = new MapSqlParameterSource("id", productId);
+                List<Integer> stock = jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, id, Integer.class);
+                if (!stock.isEmpty()) {
+                    shardedStock.shard(productId, stock.get(0));
+                    jdbcTemplate.update(MARK_SHARDED_SQL, id);
+                    log.info("Split stock of product {} into {} buckets", productId,
+                            properties.getSharding().getBuckets());
+                }
+            });
+        }
+    }
+
+    private void rollUp() {
+        List<Long> stale = jdbcTemplate.getJdbcTemplate().queryForList(STALE_TOTALS_SQL, Long.class);
+        if (stale.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(ROLL_UP_SQL,
+                new MapSqlParameterSource("ids", stale)
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))));
+        List<ProductResponse> products = productRepository.findResponsesByIdIn(stale);
+        cacheInvalidator.productsChanged(stale);
+        eventPublisher.publishEvent(new ProductsChangedEvent(products));
+        log.debug("Rolled up bucket stock of {} products", stale.size());
+    }
+}
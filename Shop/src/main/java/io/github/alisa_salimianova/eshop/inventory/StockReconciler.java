@@ -0,0 +1,84 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Переносит продажи, прошедшие через {@link StockReservations}, в products.stock_quantity:
+ * заказы берутся пачками, количество по каждому товару складывается, и строка товара
+ * обновляется один раз на пачку, а не на каждый заказ.
+ * Работает и при выключенном учёте в памяти, чтобы дописать продажи, сделанные до выключения.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockReconciler {
+
+    // Locked so a concurrent cancellation either waits for this batch or is skipped by it
+    private static final String PENDING_ORDERS_SQL = """
+            SELECT id FROM orders
+            WHERE stock_reconciled = false
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE""";
+
+    private static final String SOLD_SQL = """
+            SELECT product_id, SUM(quantity) AS sold
+            FROM order_items
+            WHERE order_id IN (:ids)
+            GROUP BY product_id""";
+
+    private static final String MARK_RECONCILED_SQL =
+            "UPDATE orders SET stock_reconciled = true WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockUpdater stockUpdater;
+    private final InventoryProperties properties;
+
+    @Scheduled(fixedDelayString = "${app.inventory.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        int batchSize = properties.getReconcileBatchSize();
+        int total = 0;
+        int reconciled;
+        do {
+            Integer count = transactionTemplate.execute(status -> reconcileBatch(batchSize));
+            reconciled = count != null ? count : 0;
+            total += reconciled;
+        } while (reconciled == batchSize);
+        if (total > 0) {
+            log.debug("Reconciled stock for {} orders", total);
+        }
+    }
+
+    private int reconcileBatch(int batchSize) {
+        List<Long> orderIds = jdbcTemplate.queryForList(PENDING_ORDERS_SQL,
+                new MapSqlParameterSource("limit", batchSize), Long.class);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", orderIds);
+        Map<Long, Integer> sold = new HashMap<>();
+        jdbcTemplate.query(SOLD_SQL, ids, rs -> {
+            sold.put(rs.getLong("product_id"), rs.getInt("sold"));
+        });
+
+        List<Long> missing = stockUpdater.subtract(sold);
+        if (!missing.isEmpty()) {
+            log.warn("Orders {} referenced products {} that no longer exist; their stock was not reduced",
+                    orderIds, missing);
+        }
+        jdbcTemplate.update(MARK_RECONCILED_SQL, ids);
+        return orderIds.size();
+    }
+}
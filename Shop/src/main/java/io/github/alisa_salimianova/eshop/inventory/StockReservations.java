@@ -0,0 +1,337 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogListener;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.exception.InsufficientStockException;
+import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Резервирование остатков в памяти для распродаж: у каждого товара свой счётчик доступного
+ * количества, и оформление заказа не стоит в очереди за строкой products.
+ * Проданное пишется в заказ с флагом stock_reconciled = false, а {@link StockReconciler}
+ * пачками переносит его в products.stock_quantity. Поэтому после рестарта счётчики
+ * восстанавливаются из базы как остаток минус ещё не перенесённые продажи.
+ * Счётчики живут в одной JVM: при нескольких узлах горячие товары нужно направлять на один из них.
+ */
+@Component
+@Slf4j
+public class StockReservations implements CatalogListener {
+
+    // Stock minus sales that the reconciler has not written to the product row yet
+    private static final String AVAILABLE_SQL = """
+            SELECT p.id,
+                CASE WHEN p.stock_sharded = true
+                    THEN (SELECT SUM(b.quantity) FROM inventory_buckets b WHERE b.product_id = p.id)
+                    ELSE p.stock_quantity END - COALESCE(SUM(oi.quantity), 0) AS available
+            FROM products p
+            LEFT JOIN order_items oi ON oi.product_id = p.id
+                AND oi.order_id IN (SELECT o.id FROM orders o WHERE o.stock_reconciled = false)
+            WHERE p.active = true""";
+    // Keeps each IN list well under the driver's bind parameter limit
+    static final int REFRESH_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InventoryProperties properties;
+    private final TaskExecutor taskExecutor;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<UUID, StockHold> holds = new ConcurrentHashMap<>();
+    // Commits share the lock from before the database commit until the counters are adjusted;
+    // a refresh takes it exclusively, so it never reads the database between the two
+    private final ReadWriteLock refreshLock = new ReentrantReadWriteLock();
+    // The catalog calls its listeners one at a time, so this needs no further guarding
+    private volatile CatalogSnapshot lastSnapshot = CatalogSnapshot.empty();
+
+    public StockReservations(NamedParameterJdbcTemplate jdbcTemplate, InventoryProperties properties,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public boolean isEnabled() {
+        return properties.getReservations().isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (isEnabled()) {
+            refresh(null);
+            log.info("Stock reservation ledger loaded for {} products", counters.size());
+        }
+    }
+
+    /**
+     * Откладывает товары на время {@code app.inventory.reservations.hold-ttl}, например из корзины.
+     */
+    public StockHold hold(Map<Long, Integer> items) {
+        StockHold hold = acquire(items, Instant.now().plus(properties.getReservations().getHoldTtl()));
+        holds.put(hold.id(), hold);
+        return hold;
+    }
+
+    /**
+     * Откладывает товары для заказа, который оформляется прямо сейчас.
+     */
+    public StockHold reserve(Map<Long, Integer> items) {
+        return acquire(items, Instant.now());
+    }
+
+    /**
+     * Забирает отложенное из корзины под заказ; товары заказа должны совпадать с отложенными.
+     */
+    public StockHold claim(UUID holdId, Map<Long, Integer> items) {
+        StockHold hold = holds.remove(holdId);
+        if (hold == null || hold.isExpired(Instant.now())) {
+            if (hold != null) {
+                release(hold);
+            }
+            throw new ResourceNotFoundException("Stock hold", "id", holdId);
+        }
+        if (!hold.items().equals(items)) {
+            holds.put(holdId, hold);
+            throw new IllegalArgumentException("Order items do not match stock hold " + holdId);
+        }
+        return hold;
+    }
+
+    public void release(UUID holdId) {
+        StockHold hold = holds.remove(holdId);
+        if (hold == null) {
+            throw new ResourceNotFoundException("Stock hold", "id", holdId);
+        }
+        release(hold);
+    }
+
+    /**
+     * Списывает отложенное при фиксации текущей транзакции и возвращает его при откате.
+     */
+    public void consumeOnCommit(StockHold hold) {
+        afterTransaction(committed -> hold.items().forEach((productId, quantity) ->
+                counter(productId).settle(quantity, !committed)));
+    }
+
+    /**
+     * Возвращает товары в доступные при фиксации текущей транзакции (отмена заказа).
+     */
+    public void returnOnCommit(Map<Long, Integer> items) {
+        afterTransaction(committed -> {
+            if (committed) {
+                items.forEach((productId, quantity) -> counter(productId).add(quantity));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reservations.sweep-interval-ms:1000}")
+    public void releaseExpiredHolds() {
+        Instant now = Instant.now();
+        int released = 0;
+        for (StockHold hold : holds.values()) {
+            if (hold.isExpired(now) && holds.remove(hold.id(), hold)) {
+                release(hold);
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.debug("Released {} expired stock holds", released);
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        // The ledger is loaded on ApplicationReadyEvent, outside the catalog lock
+        lastSnapshot = snapshot;
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        CatalogSnapshot previous = lastSnapshot;
+        lastSnapshot = snapshot;
+        if (!isEnabled()) {
+            return;
+        }
+        // Only restocks, new and removed products move the counters: rating flushes and other edits
+        // must not hold up order commits behind the refresh lock
+        List<Long> ids = changes.stream()
+                .filter(change -> stockChanged(previous, change))
+                .map(ProductResponse::getId)
+                .toList();
+        if (!ids.isEmpty()) {
+            // The query must not run under the catalog lock
+            taskExecutor.execute(() -> refresh(ids));
+        }
+    }
+
+    private static boolean stockChanged(CatalogSnapshot previous, ProductResponse change) {
+        int row = previous.indexOf(change.getId());
+        if (!Boolean.TRUE.equals(change.getActive())) {
+            return row >= 0;
+        }
+        int stock = change.getStockQuantity() != null ? change.getStockQuantity() : 0;
+        return row < 0 || previous.stockAt(row) != stock;
+    }
+
+    /**
+     * Пересчитывает счётчики из базы; {@code null} — все товары.
+     * Список товаров читается частями, и блокировка берётся на каждую часть отдельно.
+     */
+    void refresh(Collection<Long> productIds) {
+        if (productIds == null) {
+            refreshChunk(null);
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            refreshChunk(ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size())));
+        }
+    }
+
+    private void refreshChunk(Collection<Long> productIds) {
+        Lock lock = refreshLock.writeLock();
+        lock.lock();
+        try {
+            Map<Long, Integer> available = new HashMap<>();
+            MapSqlParameterSource parameters = new MapSqlParameterSource();
+            String sql = AVAILABLE_SQL;
+            if (productIds != null) {
+                sql += " AND p.id IN (:ids)";
+                parameters.addValue("ids", productIds);
+            }
+            jdbcTemplate.query(sql + " GROUP BY p.id, p.stock_quantity, p.stock_sharded", parameters,
+                    rs -> {
+                        available.put(rs.getLong("id"), rs.getInt("available"));
+                    });
+            Collection<Long> ids = productIds != null ? productIds : available.keySet();
+            // Products that are gone or inactive can no longer be reserved
+            ids.forEach(id -> reset(id, available.getOrDefault(id, 0)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void reset(Long productId, int fromDatabase) {
+        counter(productId).reset(fromDatabase);
+    }
+
+    public int available(Long productId) {
+        Counter counter = counters.get(productId);
+        return counter == null ? 0 : counter.available();
+    }
+
+    private StockHold acquire(Map<Long, Integer> items, Instant expiresAt) {
+        Map<Long, Integer> taken = new TreeMap<>();
+        List<Long> failed = new ArrayList<>();
+        // Every item is tried so the caller learns about all of the missing ones at once
+        new TreeMap<>(items).forEach((productId, quantity) -> {
+            Counter counter = counters.get(productId);
+            if (counter != null && counter.take(quantity)) {
+                taken.put(productId, quantity);
+            } else {
+                failed.add(productId);
+            }
+        });
+        if (!failed.isEmpty()) {
+            taken.forEach((productId, quantity) -> counter(productId).settle(quantity, true));
+            throw new InsufficientStockException(failed);
+        }
+        return new StockHold(UUID.randomUUID(), items, expiresAt);
+    }
+
+    private void release(StockHold hold) {
+        hold.items().forEach((productId, quantity) -> counter(productId).settle(quantity, true));
+    }
+
+    private Counter counter(Long productId) {
+        return counters.computeIfAbsent(productId, id -> new Counter());
+    }
+
+    private void afterTransaction(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Stock reservations can only be settled inside a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Lock locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                locked = refreshLock.readLock();
+                locked.lock();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    action.accept(status == STATUS_COMMITTED);
+                } finally {
+                    if (locked != null) {
+                        locked.unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Доступное и отложенное количество одного товара; блокировка — на счётчике,
+     * так что покупки разных товаров друг друга не ждут.
+     */
+    private static final class Counter {
+        private int available;
+        private int held;
+
+        synchronized boolean take(int quantity) {
+            if (available < quantity) {
+                return false;
+            }
+            available -= quantity;
+            held += quantity;
+            return true;
+        }
+
+        // Held units either leave for good (sold) or go back to the available ones
+        synchronized void settle(int quantity, boolean release) {
+            held -= quantity;
+            if (release) {
+                available += quantity;
+            }
+        }
+
+        synchronized void add(int quantity) {
+            available += quantity;
+        }
+
+        synchronized void reset(int fromDatabase) {
+            available = Math.max(0, fromDatabase - held);
+        }
+
+        synchronized int available() {
+            return available;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Списание и возврат остатков без чтения строк в Java: проверка и изменение — один условный UPDATE
+ * на товар, все товары заказа уходят одним batch. Работает в транзакции вызывающего кода,
+ * поэтому при отказе хотя бы по одному товару откат возвращает и уже списанные.
+ * Товары, остаток которых разложен по корзинам, обновляются через {@link ShardedStock}.
+ * Драйверы вправе не сообщать число изменённых строк в batch (SUCCESS_NO_INFO): первый batch
+ * выполняется под savepoint, и если точных счётчиков нет, он откатывается, а дальше строки
+ * обновляются по одной.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockUpdater {
+
+    private static final String DECREMENT_SQL = """
+            UPDATE products
+            SET stock_quantity = stock_quantity - ?,
+                updated_at = ?
+            WHERE id = ? AND active = true AND stock_quantity >= ? AND stock_sharded = false""";
+
+    private static final String RESTORE_SQL = """
+            UPDATE products
+            SET stock_quantity = stock_quantity + ?,
+                updated_at = ?
+            WHERE id = ? AND stock_sharded = false""";
+
+    // Sales already checked against the in-memory ledger, so the row is not re-checked
+    private static final String SUBTRACT_SQL = """
+            UPDATE products
+            SET stock_quantity = stock_quantity - ?,
+                updated_at = ?
+            WHERE id = ? AND stock_sharded = false""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardedStock shardedStock;
+    // What the driver is known to report for batched statements; it does not change at runtime
+    private volatile BatchCounts batchCounts = BatchCounts.UNPROVEN;
+
+    /**
+     * @return товары, по которым списать не удалось (нет в наличии, нет товара или он снят с продажи)
+     */
+    public List<Long> decrement(Map<Long, Integer> quantities) {
+        return update(DECREMENT_SQL, quantities, true, shardedStock::take);
+    }
+
+    /**
+     * @return товары, которых больше нет в базе
+     */
+    public List<Long> restore(Map<Long, Integer> quantities) {
+        return update(RESTORE_SQL, quantities, false, buckets -> {
+            shardedStock.add(buckets);
+            return List.of();
+        });
+    }
+
+    /**
+     * Переносит в базу продажи, уже проверенные по {@link StockReservations}.
+     *
+     * @return товары, которых больше нет в базе
+     */
+    public List<Long> subtract(Map<Long, Integer> quantities) {
+        return update(SUBTRACT_SQL, quantities, false, buckets -> {
+            shardedStock.subtract(buckets);
+            return List.of();
+        });
+    }
+
+    private List<Long> update(String sql, Map<Long, Integer> quantities, boolean conditional,
+                              Function<Map<Long, Integer>, List<Long>> bucketUpdate) {
+        Set<Long> sharded = new HashSet<>();
+        if (shardedStock.isEnabled()) {
+            // Products known to be split never touch their product row, which would serialize them again
+            sharded.addAll(shardedStock.sharded(quantities.keySet(), conditional));
+        }
+        Map<Long, Integer> rows = new HashMap<>(quantities);
+        rows.keySet().removeAll(sharded);
+        List<Long> failed = new ArrayList<>();
+        List<Long> skipped = updateRows(sql, rows, conditional);
+        if (!skipped.isEmpty()) {
+            // A skipped row may belong to a product whose stock has just been split into buckets
+            Set<Long> split = shardedStock.sharded(skipped, conditional);
+            skipped.stream().filter(productId -> !split.contains(productId)).forEach(failed::add);
+            sharded.addAll(split);
+        }
+        if (!sharded.isEmpty()) {
+            Map<Long, Integer> buckets = new HashMap<>();
+            sharded.forEach(productId -> buckets.put(productId, quantities.get(productId)));
+            failed.addAll(bucketUpdate.apply(buckets));
+        }
+        Collections.sort(failed);
+        return failed;
+    }
+
+    private List<Long> updateRows(String sql, Map<Long, Integer> quantities, boolean conditional) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // Rows are locked in id order, so two orders over the same products cannot deadlock
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> failed = switch (batchCounts) {
+            case EXACT -> skipped(rows, batch(sql, rows, now, conditional));
+            case UNKNOWN -> updateOneByOne(sql, rows, now, conditional);
+            case UNPROVEN -> TransactionSynchronizationManager.isActualTransactionActive()
+                    ? jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection ->
+                            updateUnderSavepoint(connection, sql, rows, now, conditional))
+                    : updateOneByOne(sql, rows, now, conditional);
+        };
+        if (!failed.isEmpty()) {
+            log.debug("Stock update skipped products {}", failed);
+        }
+        return failed;
+    }
+
+    private List<Long> updateUnderSavepoint(Connection connection, String sql,
+                                            List<Map.Entry<Long, Integer>> rows, Timestamp now,
+                                            boolean conditional) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        int[] counts = batch(sql, rows, now, conditional);
+        if (isExact(counts)) {
+            connection.releaseSavepoint(savepoint);
+            batchCounts = BatchCounts.EXACT;
+            return skipped(rows, counts);
+        }
+        // The batch ran, but which rows matched is unknown: undo it and learn that row by row
+        connection.rollback(savepoint);
+        batchCounts = BatchCounts.UNKNOWN;
+        log.info("The JDBC driver does not report batch update counts, stock rows are updated one at a time");
+        return updateOneByOne(sql, rows, now, conditional);
+    }
+
+    private int[] batch(String sql, List<Map.Entry<Long, Integer>> rows, Timestamp now, boolean conditional) {
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, row.getValue());
+            statement.setTimestamp(2, now);
+            statement.setLong(3, row.getKey());
+            if (conditional) {
+                statement.setInt(4, row.getValue());
+            }
+        });
+        return counts[0];
+    }
+
+    private List<Long> updateOneByOne(String sql, List<Map.Entry<Long, Integer>> rows, Timestamp now,
+                                      boolean conditional) {
+        List<Long> failed = new ArrayList<>();
+        for (Map.Entry<Long, Integer> row : rows) {
+            int count = conditional
+                    ? jdbcTemplate.update(sql, row.getValue(), now, row.getKey(), row.getValue())
+                    : jdbcTemplate.update(sql, row.getValue(), now, row.getKey());
+            if (count != 1) {
+                failed.add(row.getKey());
+            }
+        }
+        return failed;
+    }
+
+    private List<Long> skipped(List<Map.Entry<Long, Integer>> rows, int[] counts) {
+        if (!isExact(counts)) {
+            // Only a driver that once reported exact counts gets here, so the transaction is failed instead
+            batchCounts = BatchCounts.UNKNOWN;
+            throw new IllegalStateException("Stock batch update returned unknown row counts");
+        }
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (counts[i] == 0) {
+                failed.add(rows.get(i).getKey());
+            }
+        }
+        return failed;
+    }
+
+    private static boolean isExact(int[] counts) {
+        for (int count : counts) {
+            // Each statement targets one row by id, so anything else (e.g. SUCCESS_NO_INFO) says nothing
+            if (count != 0 && count != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum BatchCounts {
+        UNPROVEN, EXACT, UNKNOWN
+    }
+}
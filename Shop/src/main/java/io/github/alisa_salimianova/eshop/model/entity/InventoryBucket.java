@@ -0,0 +1,38 @@
+package io.github.alisa_salimianova.eshop.model.entity;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Часть остатка товара: у популярного товара остаток разложен на несколько строк,
+ * чтобы одновременные списания не ждали блокировки одной строки products.
+ */
+@Entity
+@Table(name = "inventory_buckets")
+@IdClass(InventoryBucket.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryBucket {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Integer bucket;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.alisa_salimianova.eshop.model.entity;
 
 import io.github.alisa_salimianova.eshop.model.enums.OrderStatus;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -51,6 +52,13 @@ public class Order {
     private String shippingAddress;
     private String paymentMethod;
     private String deliveryMethod;
+    private String failureReason;
+
+    // False while the sale is only in the in-memory stock ledger and not yet in products.stock_quantity
+    @Column(nullable = false)
+    @ColumnDefault("true")
+    @Builder.Default
+    private Boolean stockReconciled = true;
 
     @PrePersist
     protected void onCreate() {
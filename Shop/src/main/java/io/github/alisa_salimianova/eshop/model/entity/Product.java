@@ -2,6 +2,8 @@ package io.github.alisa_salimianova.eshop.model.entity;
 
 import io.github.alisa_salimianova.eshop.model.enums.Category;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -16,6 +18,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@DynamicUpdate
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -42,6 +45,12 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    // Stock is kept in inventory_buckets and stockQuantity is their rolled-up sum; only set by SQL
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private Boolean stockSharded = false;
+
     @Column(nullable = false)
     @Builder.Default
     private Double rating = 0.0;
@@ -79,15 +88,4 @@ public class Product {
         this.ratingCount++;
         this.rating = totalRating / this.ratingCount;
     }
-
-    public void reduceStock(Integer quantity) {
-        if (this.stockQuantity < quantity) {
-            throw new IllegalArgumentException("Insufficient stock");
-        }
-        this.stockQuantity -= quantity;
-    }
-
-    public void increaseStock(Integer quantity) {
-        this.stockQuantity += quantity;
-    }
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ package io.github.alisa_salimianova.eshop.model.enums;
  * Избегание магических чисел: статусы определены как константы.
  */
 public enum OrderStatus {
+    ACCEPTED("Принят"),
+    RESERVED("Товары зарезервированы"),
+    REJECTED("Отклонен"),
     PROCESSING("В обработке"),
     CONFIRMED("Подтвержден"),
     SHIPPED("Отправлен"),
@@ -0,0 +1,201 @@
+package io.github.alisa_salimianova.eshop.order;
+
+import io.github.alisa_salimianova.eshop.config.OrderPipelineProperties;
+import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
+import io.github.alisa_salimianova.eshop.dto.response.OrderResponse;
+import io.github.alisa_salimianova.eshop.exception.InsufficientStockException;
+import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.github.alisa_salimianova.eshop.model.enums.OrderStatus;
+import io.github.alisa_salimianova.eshop.payment.PaymentGateway;
+import io.github.alisa_salimianova.eshop.payment.PaymentResult;
+import io.github.alisa_salimianova.eshop.service.OrderService;
+import io.github.alisa_salimianova.eshop.service.interfaces.DeliveryStrategy;
+import io.github.alisa_salimianova.eshop.strategy.delivery.StandardDeliveryStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Конвейер оформления заказа: приём, резерв остатков и завершение идут на отдельных
+ * ограниченных пулах, а оплата — асинхронно через {@link PaymentGateway}. Транзакции и соединения
+ * с базой нужны только коротким этапам приёма, резерва и завершения, а ожидание платёжного
+ * провайдера не держит ни соединение, ни поток конвейера.
+ * Переполненная очередь резерва выполняет задачу в потоке приёма, так что давление доходит
+ * до приёма, а тот при полной очереди отказывает новым заказам. Число заказов между резервом
+ * и завершением ограничено местами в очереди завершения: результат оплаты всегда встаёт
+ * в очередь и никогда не выполняется в потоке, завершившем оплату.
+ */
+@Component
+@Slf4j
+public class OrderPipeline {
+
+    private static final DeliveryStrategy DELIVERY = new StandardDeliveryStrategy();
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final OrderService orderService;
+    private final PaymentGateway paymentGateway;
+    private final ThreadPoolExecutor accept;
+    private final ThreadPoolExecutor reserve;
+    private final ThreadPoolExecutor fulfil;
+    private final Semaphore fulfilSlots;
+    private final Set<CompletableFuture<Void>> paymentsInFlight = ConcurrentHashMap.newKeySet();
+
+    public OrderPipeline(OrderService orderService, PaymentGateway paymentGateway,
+                         OrderPipelineProperties properties) {
+        this.orderService = orderService;
+        this.paymentGateway = paymentGateway;
+        this.accept = stage("order-accept-", properties.getAccept(), new ThreadPoolExecutor.AbortPolicy());
+        this.reserve = stage("order-reserve-", properties.getReserve(), new ThreadPoolExecutor.CallerRunsPolicy());
+        // Never rejects while every task holds a slot; the abort only guards against a broken invariant
+        this.fulfil = stage("order-fulfil-", properties.getFulfil(), new ThreadPoolExecutor.AbortPolicy());
+        this.fulfilSlots = new Semaphore(properties.getFulfil().getThreads() + properties.getFulfil().getQueueCapacity());
+    }
+
+    /**
+     * Принимает заказ; результат завершается, когда заказ сохранён в статусе ACCEPTED.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException если очередь приёма заполнена
+     */
+    public CompletableFuture<OrderResponse> submit(CreateOrderRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            OrderResponse order = orderService.acceptOrder(request, paymentGateway.getDefaultMethodName(), DELIVERY);
+            reserve.execute(() -> reserve(order, request.getHoldId()));
+            return order;
+        }, accept);
+    }
+
+    /**
+     * Продолжает заказы, принятые до рестарта. Заказы в RESERVED не трогаются: неизвестно,
+     * прошла ли по ним оплата.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        List<OrderResponse> accepted = orderService.getOrdersByStatus(OrderStatus.ACCEPTED);
+        accepted.forEach(order -> reserve.execute(() -> reserve(order, null)));
+        int reserved = orderService.getOrdersByStatus(OrderStatus.RESERVED).size();
+        if (!accepted.isEmpty() || reserved > 0) {
+            log.warn("Resumed {} accepted orders; {} reserved orders have an unknown payment outcome and need review",
+                    accepted.size(), reserved);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Upstream first, so every stage drains into one that is still running
+        drain(accept);
+        drain(reserve);
+        try {
+            CompletableFuture.allOf(paymentsInFlight.toArray(CompletableFuture[]::new))
+                    .get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("{} payments still pending at shutdown, their orders stay RESERVED", paymentsInFlight.size());
+        }
+        drain(fulfil);
+    }
+
+    private void reserve(OrderResponse order, UUID holdId) {
+        try {
+            // Blocks this stage, and through it intake, while orders wait for payment or fulfilment
+            fulfilSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Order {} stays ACCEPTED and resumes on the next start", order.getId());
+            return;
+        }
+        boolean paying = false;
+        try {
+            if (!orderService.reserveStock(order.getId(), holdId)) {
+                log.debug("Order {} was taken over by another worker", order.getId());
+                return;
+            }
+            pay(order);
+            paying = true;
+        } catch (InsufficientStockException | ResourceNotFoundException | IllegalArgumentException e) {
+            reject(order.getId(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Stock reservation for order {} failed", order.getId(), e);
+            reject(order.getId(), "Stock reservation failed");
+        } finally {
+            if (!paying) {
+                fulfilSlots.release();
+            }
+        }
+    }
+
+    private void pay(OrderResponse order) {
+        // Completes on a payment or timeout thread; the result itself never fails
+        CompletableFuture<Void> payment = paymentGateway.pay(order.getPaymentMethod(), order.getFinalAmount())
+                .thenAcceptAsync(result -> fulfil(order.getId(), result), fulfil)
+                .whenComplete((ignored, e) -> {
+                    fulfilSlots.release();
+                    if (e != null) {
+                        log.error("Paid order {} was not handed to fulfilment and stays RESERVED", order.getId(), e);
+                    }
+                });
+        paymentsInFlight.add(payment);
+        payment.whenComplete((ignored, e) -> paymentsInFlight.remove(payment));
+    }
+
+    private void fulfil(Long orderId, PaymentResult payment) {
+        if (payment.status() == PaymentResult.Status.UNKNOWN) {
+            // The customer may have been charged: keep the stock until the order is reconciled
+            holdForReview(orderId, payment.reason());
+            return;
+        }
+        if (!payment.isApproved()) {
+            reject(orderId, payment.reason());
+            return;
+        }
+        try {
+            orderService.completeOrder(orderId);
+        } catch (RuntimeException e) {
+            log.error("Paid order {} could not be completed and stays RESERVED", orderId, e);
+        }
+    }
+
+    private void holdForReview(Long orderId, String reason) {
+        try {
+            orderService.holdForReview(orderId, reason);
+        } catch (RuntimeException e) {
+            log.error("Order {} stays RESERVED, its payment outcome could not be recorded ({})", orderId, reason, e);
+        }
+    }
+
+    private void reject(Long orderId, String reason) {
+        try {
+            orderService.rejectOrder(orderId, reason);
+        } catch (RuntimeException e) {
+            log.error("Order {} could not be rejected ({})", orderId, reason, e);
+        }
+    }
+
+    private static void drain(ThreadPoolExecutor stage) throws InterruptedException {
+        stage.shutdown();
+        if (!stage.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Order stage did not drain in {} s, {} tasks dropped",
+                    SHUTDOWN_WAIT_SECONDS, stage.shutdownNow().size());
+        }
+    }
+
+    private static ThreadPoolExecutor stage(String name, OrderPipelineProperties.Stage stage,
+                                            RejectedExecutionHandler whenFull) {
+        return new ThreadPoolExecutor(stage.getThreads(), stage.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(stage.getQueueCapacity()), new CustomizableThreadFactory(name), whenFull);
+    }
+}
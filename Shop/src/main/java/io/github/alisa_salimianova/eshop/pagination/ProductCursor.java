@@ -0,0 +1,48 @@
+package io.github.alisa_salimianova.eshop.pagination;
+
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации: последний выданный ключ сортировки и id.
+ * Клиент получает его в виде base64url-строки и передаёт обратно как {@code after}.
+ */
+public record ProductCursor(SortKey sortKey, BigDecimal price, long id) {
+
+    public enum SortKey {
+        ID, PRICE
+    }
+
+    private static final String SEPARATOR = ":";
+
+    public static ProductCursor first(SortKey sortKey) {
+        return new ProductCursor(sortKey, BigDecimal.valueOf(-1), 0L);
+    }
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + (price != null ? price.toPlainString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token, SortKey expectedSortKey) {
+        if (token == null || token.isBlank()) {
+            return first(expectedSortKey);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            if (parts.length != 3 || sortKey != expectedSortKey) {
+                throw new IllegalArgumentException("Cursor does not match sort order " + expectedSortKey);
+            }
+            BigDecimal price = parts[1].isEmpty() ? null : new BigDecimal(parts[1]);
+            return new ProductCursor(sortKey, price, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and malformed base64 are both IllegalArgumentExceptions
+            throw new InvalidRequestException("Invalid cursor: " + token, e);
+        }
+    }
+}
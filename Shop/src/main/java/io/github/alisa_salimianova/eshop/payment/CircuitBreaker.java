@@ -0,0 +1,64 @@
+package io.github.alisa_salimianova.eshop.payment;
+
+import java.time.Duration;
+
+/**
+ * Размыкатель для одного провайдера: после серии сбоев подряд вызовы отклоняются сразу,
+ * а по истечении паузы пропускается один пробный вызов, итог которого замыкает цепь
+ * или снова её размыкает.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * @return {@code true}, если вызов можно выполнять; его итог нужно сообщить
+     * через {@link #onSuccess()}, {@link #onFailure()} или {@link #onAbandoned()}
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // While the trial call is running, everything else is still rejected
+        return state == State.CLOSED;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+
+    /**
+     * Вызов не состоялся по причине, не связанной с провайдером: пробный вызов можно повторить.
+     */
+    public synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.alisa_salimianova.eshop.payment;
+
+import io.github.alisa_salimianova.eshop.config.PaymentProperties;
+import io.github.alisa_salimianova.eshop.service.interfaces.AsyncPaymentStrategy;
+import io.github.alisa_salimianova.eshop.service.interfaces.PaymentStrategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Блокирующий провайдер за асинхронным интерфейсом: вызов идёт на общем ограниченном пуле,
+ * число одновременных вызовов провайдера ограничено семафором, по таймауту результат
+ * завершается с неизвестным исходом, а поток вызова прерывается. Сбои и таймауты размыкают
+ * {@link CircuitBreaker}.
+ * Ожидание и отказы никогда не выполняются в потоке вызывающего.
+ */
+@Slf4j
+public class GuardedPaymentStrategy implements AsyncPaymentStrategy {
+
+    private final PaymentStrategy delegate;
+    private final PaymentProperties.Provider settings;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public GuardedPaymentStrategy(PaymentStrategy delegate, PaymentProperties.Provider settings,
+                                  ExecutorService executor, ScheduledExecutorService timer) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.executor = executor;
+        this.timer = timer;
+        this.bulkhead = new Semaphore(settings.getMaxConcurrent());
+        this.circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration());
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> processPayment(BigDecimal amount) {
+        String name = getPaymentMethodName();
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.completedFuture(PaymentResult.failed(name + " is busy"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            return CompletableFuture.completedFuture(PaymentResult.failed(name + " is unavailable"));
+        }
+
+        CompletableFuture<Boolean> call = new CompletableFuture<>();
+        // Whoever claims first owns the permit: the call once it starts, or the timeout if it never did
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    call.complete(delegate.processPayment(amount.doubleValue()));
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.onAbandoned();
+            return CompletableFuture.completedFuture(PaymentResult.failed("no payment thread available"));
+        }
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                // The provider was never called, so nothing can have been charged
+                bulkhead.release();
+                task.cancel(false);
+                call.completeExceptionally(new CallNotStartedException());
+            } else if (call.completeExceptionally(
+                    new TimeoutException(name + " timed out after " + settings.getTimeout()))) {
+                task.cancel(true);
+            }
+        }, settings.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+
+        return call.handle((approved, error) -> {
+            timeout.cancel(false);
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                return approved ? PaymentResult.approved() : PaymentResult.declined();
+            }
+            if (error instanceof CallNotStartedException) {
+                circuitBreaker.onAbandoned();
+                return PaymentResult.failed("no payment thread available");
+            }
+            circuitBreaker.onFailure();
+            log.warn("{} payment of {} failed: {}", name, amount, error.toString());
+            // A call that timed out may still have gone through at the provider
+            return error instanceof TimeoutException
+                    ? PaymentResult.unknown("timed out")
+                    : PaymentResult.failed("provider error");
+        });
+    }
+
+    @Override
+    public String getPaymentMethodName() {
+        return delegate.getPaymentMethodName();
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private static final class CallNotStartedException extends RuntimeException {
+        CallNotStartedException() {
+            super(null, null, false, false);
+        }
+    }
+}
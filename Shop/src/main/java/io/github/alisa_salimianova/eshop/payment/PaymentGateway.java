@@ -0,0 +1,86 @@
+package io.github.alisa_salimianova.eshop.payment;
+
+import io.github.alisa_salimianova.eshop.config.PaymentProperties;
+import io.github.alisa_salimianova.eshop.service.interfaces.AsyncPaymentStrategy;
+import io.github.alisa_salimianova.eshop.service.interfaces.PaymentStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Точка входа для оплаты: каждый блокирующий {@link PaymentStrategy} оборачивается
+ * в {@link GuardedPaymentStrategy} со своими таймаутом, лимитом одновременных вызовов
+ * и размыкателем. Вызовы всех провайдеров идут на одном пуле без очереди,
+ * поэтому медленный провайдер не занимает потоки запросов и конвейера заказов.
+ */
+@Component
+@Slf4j
+public class PaymentGateway {
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Map<String, AsyncPaymentStrategy> strategies = new HashMap<>();
+    private final String defaultMethod;
+
+    public PaymentGateway(List<PaymentStrategy> providers, PaymentProperties properties) {
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), new CustomizableThreadFactory("payment-"));
+        this.timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("payment-timeout-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        for (PaymentStrategy provider : providers) {
+            PaymentProperties.Provider settings = properties.getProviders()
+                    .getOrDefault(key(provider.getPaymentMethodName()), new PaymentProperties.Provider());
+            strategies.put(provider.getPaymentMethodName(),
+                    new GuardedPaymentStrategy(provider, settings, executor, timer));
+        }
+        if (!strategies.containsKey(properties.getDefaultMethod())) {
+            throw new IllegalStateException("Default payment method '" + properties.getDefaultMethod()
+                    + "' is not one of " + strategies.keySet());
+        }
+        this.defaultMethod = properties.getDefaultMethod();
+    }
+
+    public String getDefaultMethodName() {
+        return defaultMethod;
+    }
+
+    /**
+     * Результат завершается всегда обычным значением: сбои, таймауты и отказы по лимитам
+     * приходят как {@link PaymentResult.Status#FAILED}.
+     */
+    public CompletableFuture<PaymentResult> pay(String methodName, BigDecimal amount) {
+        AsyncPaymentStrategy strategy = strategies.get(methodName);
+        if (strategy == null) {
+            return CompletableFuture.completedFuture(PaymentResult.failed("unknown payment method " + methodName));
+        }
+        return strategy.processPayment(amount);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Payment calls still running after {} s are interrupted", SHUTDOWN_WAIT_SECONDS);
+            executor.shutdownNow();
+        }
+        timer.shutdownNow();
+    }
+
+    private static String key(String methodName) {
+        return methodName.trim().toLowerCase(Locale.ROOT).replace(' ', '-');
+    }
+}
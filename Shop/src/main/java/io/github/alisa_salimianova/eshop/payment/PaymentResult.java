@@ -0,0 +1,31 @@
+package io.github.alisa_salimianova.eshop.payment;
+
+/**
+ * Итог платежа. DECLINED — отказ провайдера; FAILED — провайдер упал, недоступен
+ * или вызов до него не дошёл, и платёж не состоялся; UNKNOWN — провайдер не ответил вовремя,
+ * и деньги могли быть списаны.
+ */
+public record PaymentResult(Status status, String reason) {
+
+    public enum Status { APPROVED, DECLINED, FAILED, UNKNOWN }
+
+    public static PaymentResult approved() {
+        return new PaymentResult(Status.APPROVED, null);
+    }
+
+    public static PaymentResult declined() {
+        return new PaymentResult(Status.DECLINED, "Payment declined");
+    }
+
+    public static PaymentResult failed(String reason) {
+        return new PaymentResult(Status.FAILED, "Payment failed: " + reason);
+    }
+
+    public static PaymentResult unknown(String reason) {
+        return new PaymentResult(Status.UNKNOWN, "Payment outcome unknown: " + reason);
+    }
+
+    public boolean isApproved() {
+        return status == Status.APPROVED;
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.alisa_salimianova.eshop.rating;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Накопитель оценок без блокировок. Для каждого товара — массив полос (stripes),
+ * в каждой полосе в одном long упакованы число оценок (старшие 32 бита) и их сумма (младшие),
+ * поэтому оценка добавляется одним атомарным сложением, а потоки разносятся по разным полосам.
+ * Сброс забирает накопленное через getAndSet и не теряет оценки, пришедшие во время сброса.
+ */
+public class RatingCounters {
+
+    private static final long COUNT_UNIT = 1L << 32;
+    private static final long SUM_MASK = COUNT_UNIT - 1;
+
+    private final int stripeMask;
+    // Entries are never removed: a writer may still hold a reference to the array being drained
+    private final Map<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+
+    public RatingCounters(int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripes);
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    public void add(long productId, int rating) {
+        add(productId, 1, rating);
+    }
+
+    /**
+     * Возвращает накопленные с прошлого сброса приращения и обнуляет их.
+     */
+    public List<RatingDelta> drain() {
+        List<RatingDelta> deltas = new ArrayList<>();
+        counters.forEach((productId, stripes) -> {
+            long count = 0;
+            long sum = 0;
+            for (int i = 0; i < stripes.length(); i++) {
+                long packed = stripes.getAndSet(i, 0);
+                count += packed >>> 32;
+                sum += packed & SUM_MASK;
+            }
+            if (count > 0) {
+                deltas.add(new RatingDelta(productId, count, sum));
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * Возвращает приращения обратно, например после неудачной записи в базу.
+     */
+    public void restore(List<RatingDelta> deltas) {
+        deltas.forEach(delta -> add(delta.productId(), delta.count(), delta.sum()));
+    }
+
+    private void add(long productId, long count, long sum) {
+        AtomicLongArray stripes = counters.computeIfAbsent(productId, id -> new AtomicLongArray(stripeMask + 1));
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        stripes.addAndGet(stripe, count * COUNT_UNIT + sum);
+    }
+
+    public record RatingDelta(long productId, long count, long sum) {
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.alisa_salimianova.eshop.rating;
+
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись оценок: оценки копятся в {@link RatingCounters} и сбрасываются в базу
+ * пакетом UPDATE по расписанию, при достижении порога и при остановке приложения.
+ * Новое среднее считается в самой базе, поэтому запись не зависит от прочитанного ранее значения.
+ */
+@Component
+@Slf4j
+public class RatingWriteBehind {
+
+    private static final String UPDATE_SQL = """
+            UPDATE products
+            SET rating = (rating * rating_count + ?) / (rating_count + ?),
+                rating_count = rating_count + ?,
+                updated_at = ?
+            WHERE id = ?""";
+
+    private final RatingCounters counters;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor taskExecutor;
+    private final int flushThreshold;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public RatingWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             ProductRepository productRepository,
+                             ProductCacheInvalidator cacheInvalidator, ApplicationEventPublisher eventPublisher,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                             @Value("${app.ratings.stripes:8}") int stripes,
+                             @Value("${app.ratings.flush-threshold:1000}") int flushThreshold) {
+        this.counters = new RatingCounters(stripes);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productRepository = productRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.taskExecutor = taskExecutor;
+        this.flushThreshold = flushThreshold;
+    }
+
+    public void record(long productId, int rating) {
+        counters.add(productId, rating);
+        if (pending.incrementAndGet() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratings.flush-interval-ms:1000}")
+    public void flush() {
+        // Held until the change is published, so a flush that finds nothing to write
+        // returns only after a concurrent one has made its ratings visible
+        flushLock.lock();
+        try {
+            List<Long> flushed = write();
+            if (flushed.isEmpty()) {
+                return;
+            }
+            List<ProductResponse> products = productRepository.findResponsesByIdIn(flushed);
+            products.forEach(product ->
+                    cacheInvalidator.productChanged(product.getId(), product.getActive(), product.getActive()));
+            eventPublisher.publishEvent(new ProductsChangedEvent(products));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        // Nobody is left to consume change events; only make sure the ratings reach the database
+        List<Long> flushed = write();
+        log.info("Flushed ratings for {} products on shutdown", flushed.size());
+    }
+
+    private List<Long> write() {
+        flushLock.lock();
+        try {
+            pending.set(0);
+            List<RatingCounters.RatingDelta> deltas = counters.drain();
+            if (deltas.isEmpty()) {
+                return List.of();
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(UPDATE_SQL, deltas, deltas.size(), (statement, delta) -> {
+                            statement.setLong(1, delta.sum());
+                            statement.setLong(2, delta.count());
+                            statement.setLong(3, delta.count());
+                            statement.setTimestamp(4, now);
+                            statement.setLong(5, delta.productId());
+                        }));
+            } catch (RuntimeException e) {
+                counters.restore(deltas);
+                log.error("Failed to flush ratings for {} products, will retry", deltas.size(), e);
+                return List.of();
+            }
+            log.debug("Flushed ratings for {} products", deltas.size());
+            return deltas.stream().map(RatingCounters.RatingDelta::productId).collect(Collectors.toList());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -6,12 +6,14 @@ import io.github.alisa_salimianova.eshop.model.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -33,4 +35,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     BigDecimal getTotalSpentByUser(@Param("userId") Long userId);
 
     Long countByUser(User user);
-}
\ No newline at end of file
+
+    // Conditional, so two concurrent cancellations cannot both restore the stock
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id = :id AND o.status IN :from")
+    int updateStatus(@Param("id") Long id,
+                     @Param("from") Collection<OrderStatus> from,
+                     @Param("status") OrderStatus status);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.failureReason = :reason WHERE o.id = :id AND o.status IN :from")
+    int updateStatus(@Param("id") Long id,
+                     @Param("from") Collection<OrderStatus> from,
+                     @Param("status") OrderStatus status,
+                     @Param("reason") String reason);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.stockReconciled = true WHERE o.id = :id AND o.stockReconciled = false")
+    int markStockReconciled(@Param("id") Long id);
+}
@@ -1,20 +1,29 @@
 package io.github.alisa_salimianova.eshop.repository;
 
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
 import io.github.alisa_salimianova.eshop.model.entity.Product;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     List<Product> findByCategory(Category category);
 
@@ -41,4 +50,75 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE p.id IN :ids")
     List<Product> findByIdIn(@Param("ids") List<Long> ids);
-}
\ No newline at end of file
+
+    // Read projections: rows go straight into ProductResponse without entering the persistence context
+
+    String RESPONSE = "SELECT new io.github.alisa_salimianova.eshop.dto.response.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.category, p.manufacturer, p.sku, p.stockQuantity, " +
+            "p.rating, p.ratingCount, p.active, p.createdAt, p.updatedAt) FROM Product p ";
+
+    @Query(RESPONSE + "WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(RESPONSE + "WHERE p.sku IN :skus")
+    List<ProductResponse> findResponsesBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    @Query(RESPONSE + "WHERE p.active = true")
+    List<ProductResponse> findActiveResponses();
+
+    @Query(RESPONSE + "WHERE p.active = true")
+    Slice<ProductResponse> findActiveResponses(Pageable pageable);
+
+    @Query(value = RESPONSE + "WHERE p.category = :category AND p.active = true",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.category = :category AND p.active = true")
+    Page<ProductResponse> findActiveResponsesByCategory(@Param("category") Category category, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE p.price <= :maxPrice AND p.active = true")
+    List<ProductResponse> findResponsesUnderPrice(@Param("maxPrice") BigDecimal maxPrice);
+
+    @Query(RESPONSE + "WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.active = true ORDER BY p.price, p.id")
+    List<ProductResponse> findResponsesInPriceRange(@Param("minPrice") BigDecimal minPrice,
+                                                    @Param("maxPrice") BigDecimal maxPrice);
+
+    /**
+     * Includes deactivated products so that the catalog can drop them.
+     */
+    @Query(RESPONSE + "WHERE p.updatedAt > :since")
+    List<ProductResponse> findResponsesUpdatedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Forward-only cursor over active products; must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE + "WHERE p.active = true ORDER BY p.id")
+    Stream<ProductResponse> streamActiveResponses();
+
+    // Keyset pagination: the Pageable only limits the result, so no OFFSET scan and no COUNT query
+
+    @Query(RESPONSE + "WHERE p.active = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findActiveAfterId(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query(RESPONSE + "WHERE p.active = true " +
+            "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price, p.id")
+    List<ProductResponse> findActiveAfterPrice(@Param("afterPrice") BigDecimal afterPrice,
+                                               @Param("afterId") Long afterId,
+                                               Pageable limit);
+
+    @Query(RESPONSE + "WHERE p.category = :category AND p.active = true AND p.id > :afterId " +
+            "ORDER BY p.id")
+    List<ProductResponse> findByCategoryAfterId(@Param("category") Category category,
+                                                @Param("afterId") Long afterId,
+                                                Pageable limit);
+
+    @Query(RESPONSE + "WHERE p.category = :category AND p.active = true " +
+            "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "ORDER BY p.price, p.id")
+    List<ProductResponse> findByCategoryAfterPrice(@Param("category") Category category,
+                                                   @Param("afterPrice") BigDecimal afterPrice,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable limit);
+}
@@ -0,0 +1,61 @@
+package io.github.alisa_salimianova.eshop.search;
+
+import java.util.Arrays;
+
+/**
+ * Список вхождений терма: отсортированные номера документов и частоты в примитивных массивах.
+ */
+final class PostingList {
+
+    private int[] docs = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int docAt(int index) {
+        return docs[index];
+    }
+
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+
+    void add(int doc, int frequency) {
+        int index = Arrays.binarySearch(docs, 0, size, doc);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        docs[insertAt] = doc;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+
+    void remove(int doc) {
+        int index = Arrays.binarySearch(docs, 0, size, doc);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Позиция документа или отрицательное значение; поиск начинается с {@code from},
+     * так как при пересечении курсор только растёт.
+     */
+    int find(int doc, int from) {
+        return Arrays.binarySearch(docs, from, size, doc);
+    }
+}
@@ -0,0 +1,259 @@
+package io.github.alisa_salimianova.eshop.search;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogListener;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по названию, описанию и производителю активных товаров.
+ * Запрос из нескольких слов ищет товары, содержащие все слова, и ранжирует их по BM25;
+ * вхождения в названии и производителе весят больше, чем в описании.
+ * Индекс обновляется вместе с витриной и не обращается к базе.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements CatalogListener {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int MANUFACTURER_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docsByProduct = new HashMap<>();
+
+    // An update keeps its slot and slots of removed documents are handed out again, so the
+    // arrays stay as large as the catalog; posting lists insert by binary search and stay sorted
+    private long[] productIds = new long[0];
+    private int[] docLengths = new int[0];
+    private String[][] docTerms = new String[0][];
+    private int[] freeDocs = new int[0];
+    private int freeCount;
+    private int nextDoc;
+    private int liveDocs;
+    private long totalLength;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void onCatalogLoaded(CatalogSnapshot snapshot) {
+        write(() -> {
+            postings.clear();
+            docsByProduct.clear();
+            productIds = new long[snapshot.size()];
+            docLengths = new int[snapshot.size()];
+            docTerms = new String[snapshot.size()][];
+            freeDocs = new int[snapshot.size()];
+            freeCount = 0;
+            nextDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+            for (int row = 0; row < snapshot.size(); row++) {
+                index(snapshot.idAt(row), snapshot.nameAt(row), snapshot.manufacturerAt(row),
+                        snapshot.descriptionAt(row));
+            }
+        });
+        ready = true;
+        log.info("Search index built: {} documents, {} terms", liveDocs, postings.size());
+    }
+
+    @Override
+    public void onProductsChanged(CatalogSnapshot snapshot, List<ProductResponse> changes) {
+        write(() -> {
+            for (ProductResponse product : changes) {
+                if (Boolean.TRUE.equals(product.getActive())) {
+                    index(product.getId(), product.getName(), product.getManufacturer(), product.getDescription());
+                } else {
+                    remove(product.getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Ищет товары, содержащие все слова запроса, и возвращает запрошенный срез по релевантности.
+     */
+    public SearchHits search(String query, long offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenize(query)));
+        if (terms.isEmpty()) {
+            return SearchHits.empty();
+        }
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return SearchHits.empty();
+                }
+            }
+            // Drive the intersection from the rarest term
+            Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (liveDocs - lists[i].size() + 0.5) / (lists[i].size() + 0.5));
+            }
+            double averageLength = liveDocs == 0 ? 1 : (double) totalLength / liveDocs;
+
+            long wanted = offset + limit;
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(ScoredDoc.WORST_FIRST);
+            int total = 0;
+            int[] cursors = new int[lists.length];
+            PostingList rarest = lists[0];
+            candidates:
+            for (int i = 0; i < rarest.size(); i++) {
+                int doc = rarest.docAt(i);
+                double score = termScore(rarest.frequencyAt(i), idf[0], docLengths[doc], averageLength);
+                for (int t = 1; t < lists.length; t++) {
+                    int position = lists[t].find(doc, cursors[t]);
+                    if (position < 0) {
+                        cursors[t] = -position - 1;
+                        continue candidates;
+                    }
+                    cursors[t] = position + 1;
+                    score += termScore(lists[t].frequencyAt(position), idf[t], docLengths[doc], averageLength);
+                }
+                total++;
+                if (top.size() < wanted) {
+                    top.add(new ScoredDoc(doc, score));
+                } else if (wanted > 0 && ScoredDoc.WORST_FIRST.compare(top.peek(), new ScoredDoc(doc, score)) < 0) {
+                    top.poll();
+                    top.add(new ScoredDoc(doc, score));
+                }
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(ScoredDoc.WORST_FIRST.reversed());
+            long[] ids = ranked.stream()
+                    .skip(offset)
+                    .mapToLong(hit -> productIds[hit.doc()])
+                    .toArray();
+            return new SearchHits(total, ids);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    int allocatedDocs() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return nextDoc;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static double termScore(int frequency, double idf, int docLength, double averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * docLength / averageLength));
+    }
+
+    private void index(long productId, String name, String manufacturer, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, name, NAME_WEIGHT);
+        addTerms(frequencies, manufacturer, MANUFACTURER_WEIGHT);
+        addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+
+        Integer existing = docsByProduct.get(productId);
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unlinkTerms(doc);
+        } else {
+            doc = allocateDoc(productId);
+        }
+
+        int length = 0;
+        String[] terms = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(doc, entry.getValue());
+            terms[i++] = entry.getKey();
+            length += entry.getValue();
+        }
+        docTerms[doc] = terms;
+        docLengths[doc] = length;
+        totalLength += length;
+    }
+
+    private void remove(long productId) {
+        Integer doc = docsByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        unlinkTerms(doc);
+        docTerms[doc] = null;
+        docLengths[doc] = 0;
+        freeDocs[freeCount++] = doc;
+        liveDocs--;
+    }
+
+    private void unlinkTerms(int doc) {
+        for (String term : docTerms[doc]) {
+            PostingList list = postings.get(term);
+            list.remove(doc);
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= docLengths[doc];
+    }
+
+    private int allocateDoc(long productId) {
+        if (freeCount == 0 && nextDoc == productIds.length) {
+            int capacity = Math.max(16, nextDoc * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            freeDocs = Arrays.copyOf(freeDocs, capacity);
+        }
+        int doc = freeCount > 0 ? freeDocs[--freeCount] : nextDoc++;
+        productIds[doc] = productId;
+        docsByProduct.put(productId, doc);
+        liveDocs++;
+        return doc;
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : TextTokenizer.tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private void write(Runnable update) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            update.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private record ScoredDoc(int doc, double score) {
+        // Lower score first; on ties the later document is considered worse
+        static final Comparator<ScoredDoc> WORST_FIRST = Comparator.comparingDouble(ScoredDoc::score)
+                .thenComparing(Comparator.comparingInt(ScoredDoc::doc).reversed());
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.alisa_salimianova.eshop.search;
+
+/**
+ * Страница результатов поиска: id товаров в порядке убывания релевантности
+ * и общее число совпавших товаров.
+ */
+public record SearchHits(int total, long[] productIds) {
+
+    public static SearchHits empty() {
+        return new SearchHits(0, new long[0]);
+    }
+}
@@ -4,6 +4,9 @@ import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
 import io.github.alisa_salimianova.eshop.dto.response.OrderResponse;
 import io.github.alisa_salimianova.eshop.exception.InsufficientStockException;
 import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.github.alisa_salimianova.eshop.inventory.StockHold;
+import io.github.alisa_salimianova.eshop.inventory.StockReservations;
+import io.github.alisa_salimianova.eshop.inventory.StockUpdater;
 import io.github.alisa_salimianova.eshop.mapper.OrderMapper;
 import io.github.alisa_salimianova.eshop.model.entity.Order;
 import io.github.alisa_salimianova.eshop.model.entity.Product;
@@ -13,15 +16,17 @@ import io.github.alisa_salimianova.eshop.repository.OrderRepository;
 import io.github.alisa_salimianova.eshop.repository.ProductRepository;
 import io.github.alisa_salimianova.eshop.repository.UserRepository;
 import io.github.alisa_salimianova.eshop.service.interfaces.DeliveryStrategy;
-import io.github.alisa_salimianova.eshop.service.interfaces.PaymentStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,43 +34,194 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    private static final Set<OrderStatus> CANCELLABLE =
+            EnumSet.of(OrderStatus.PROCESSING, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final OrderMapper orderMapper;
+    private final StockUpdater stockUpdater;
+    private final StockReservations stockReservations;
 
+    /**
+     * Первый этап конвейера заказа: проверяет пользователя и товары, считает суммы
+     * и сохраняет заказ в статусе ACCEPTED, не трогая остатки.
+     */
     @Transactional
-    public OrderResponse createOrder(CreateOrderRequest request,
-                                     PaymentStrategy paymentStrategy,
+    public OrderResponse acceptOrder(CreateOrderRequest request,
+                                     String paymentMethodName,
                                      DeliveryStrategy deliveryStrategy) {
-
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+        Map<Long, Integer> productQuantities = quantities(request);
+        List<Product> products = findProducts(productQuantities);
+
+        Order order = buildOrder(request, user, products, productQuantities, paymentMethodName, deliveryStrategy);
+        order.setStatus(OrderStatus.ACCEPTED);
+        Order savedOrder = orderRepository.save(order);
+        log.info("Order accepted: {} for user: {}", savedOrder.getId(), user.getEmail());
+        return orderMapper.toResponse(savedOrder);
+    }
+
+    /**
+     * Списывает остатки под принятый заказ и переводит его в RESERVED.
+     *
+     * @return {@code false}, если заказ уже не в ACCEPTED (его забрал другой обработчик)
+     */
+    @Transactional
+    public boolean reserveStock(Long orderId, UUID holdId) {
+        // Claim the order first: the row stays locked until commit, so only one worker reserves it
+        if (orderRepository.updateStatus(orderId, EnumSet.of(OrderStatus.ACCEPTED), OrderStatus.RESERVED) == 0) {
+            return false;
+        }
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        boolean ledger = takeStock(itemQuantities(order), holdId);
+        order.setStockReconciled(!ledger);
+        return true;
+    }
+
+    /**
+     * Завершает оплаченный заказ: дальше он обрабатывается как обычный.
+     */
+    @Transactional
+    public void completeOrder(Long orderId) {
+        if (orderRepository.updateStatus(orderId, EnumSet.of(OrderStatus.RESERVED), OrderStatus.PROCESSING) == 0) {
+            throw new IllegalStateException("Order " + orderId + " is not RESERVED");
+        }
+        log.info("Order paid and passed to processing: {}", orderId);
+    }
+
+    /**
+     * Оставляет заказ в RESERVED, когда исход оплаты неизвестен: остатки не возвращаются,
+     * пока заказ не сверят с провайдером.
+     */
+    @Transactional
+    public void holdForReview(Long orderId, String reason) {
+        orderRepository.updateStatus(orderId, EnumSet.of(OrderStatus.RESERVED), OrderStatus.RESERVED, reason);
+        log.warn("Order held for payment review: {} ({})", orderId, reason);
+    }
+
+    /**
+     * Отклоняет заказ конвейера; списанные под него остатки возвращаются.
+     */
+    @Transactional
+    public void rejectOrder(Long orderId, String reason) {
+        if (orderRepository.updateStatus(orderId, EnumSet.of(OrderStatus.RESERVED), OrderStatus.REJECTED, reason) == 1) {
+            releaseStock(orderRepository.findById(orderId).orElseThrow());
+        } else if (orderRepository.updateStatus(orderId, EnumSet.of(OrderStatus.ACCEPTED), OrderStatus.REJECTED, reason) == 0) {
+            throw new IllegalStateException("Order " + orderId + " is no longer in the order pipeline");
+        }
+        log.info("Order rejected: {} ({})", orderId, reason);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .map(orderMapper::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
+        return orderRepository.findByStatus(status).stream()
+                .map(orderMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getUserOrders(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        return orderRepository.findByUser(user).stream()
+                .map(orderMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void cancelOrder(Long orderId, Long userId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+
+        if (!order.getUser().getId().equals(userId)) {
+            throw new SecurityException("You are not authorized to cancel this order");
+        }
+
+        if (order.getStatus() == OrderStatus.DELIVERED) {
+            throw new IllegalStateException("Cannot cancel delivered order");
+        }
+        if (orderRepository.updateStatus(orderId, CANCELLABLE, OrderStatus.CANCELLED) == 0) {
+            throw new IllegalStateException("Order cannot be cancelled in its current status");
+        }
+
+        releaseStock(order);
+
+        log.info("Order cancelled: {}", orderId);
+    }
+
+    private Map<Long, Integer> quantities(CreateOrderRequest request) {
         // Extract product IDs and quantities
-        Map<Long, Integer> productQuantities = request.getItems().stream()
+        return request.getItems().stream()
                 .collect(Collectors.toMap(
                         CreateOrderRequest.OrderItem::getProductId,
                         CreateOrderRequest.OrderItem::getQuantity
                 ));
+    }
+
+    private static Map<Long, Integer> itemQuantities(Order order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Order.OrderItem::getQuantity, Integer::sum));
+    }
 
+    private List<Product> findProducts(Map<Long, Integer> productQuantities) {
         List<Product> products = productRepository.findAllById(productQuantities.keySet());
 
         if (products.size() != productQuantities.size()) {
             throw new ResourceNotFoundException("Some products not found");
         }
+        return products;
+    }
 
-        // Check stock availability
-        products.forEach(product -> {
-            Integer requestedQuantity = productQuantities.get(product.getId());
-            if (product.getStockQuantity() < requestedQuantity) {
-                throw new InsufficientStockException(
-                        String.format("Insufficient stock for product: %s. Available: %d, Requested: %d",
-                                product.getName(), product.getStockQuantity(), requestedQuantity)
-                );
+    /**
+     * @return {@code true}, если продажа прошла через учёт в памяти и ещё не перенесена в products
+     */
+    private boolean takeStock(Map<Long, Integer> productQuantities, UUID holdId) {
+        if (stockReservations.isEnabled()) {
+            // Reserved in memory; StockReconciler moves the sale to the product rows later
+            StockHold hold = holdId != null
+                    ? stockReservations.claim(holdId, productQuantities)
+                    : stockReservations.reserve(productQuantities);
+            stockReservations.consumeOnCommit(hold);
+            return true;
+        }
+        // Check and reduce stock in one statement per item; a failure rolls back the others
+        List<Long> outOfStock = stockUpdater.decrement(productQuantities);
+        if (!outOfStock.isEmpty()) {
+            throw new InsufficientStockException(outOfStock);
+        }
+        return false;
+    }
+
+    private void releaseStock(Order order) {
+        Map<Long, Integer> quantities = itemQuantities(order);
+        // A sale the reconciler has not applied yet never reached the product rows
+        if (orderRepository.markStockReconciled(order.getId()) == 0) {
+            List<Long> missing = stockUpdater.restore(quantities);
+            if (!missing.isEmpty()) {
+                log.warn("Order {} referenced products {} that no longer exist; their stock was not restored",
+                        order.getId(), missing);
             }
-        });
+        }
+        if (stockReservations.isEnabled()) {
+            stockReservations.returnOnCommit(quantities);
+        }
+    }
 
+    private Order buildOrder(CreateOrderRequest request, User user, List<Product> products,
+                             Map<Long, Integer> productQuantities, String paymentMethodName,
+                             DeliveryStrategy deliveryStrategy) {
         // Calculate totals
         BigDecimal itemsTotal = products.stream()
                 .map(product -> {
@@ -78,11 +234,6 @@ public class OrderService {
         BigDecimal discountAmount = calculateDiscount(itemsTotal, user);
         BigDecimal finalAmount = itemsTotal.add(deliveryCost).subtract(discountAmount);
 
-        // Process payment
-        if (!paymentStrategy.processPayment(finalAmount.doubleValue())) {
-            throw new RuntimeException("Payment processing failed");
-        }
-
         // Create order
         Order order = Order.builder()
                 .user(user)
@@ -90,7 +241,7 @@ public class OrderService {
                 .discountAmount(discountAmount)
                 .finalAmount(finalAmount)
                 .shippingAddress(request.getShippingAddress())
-                .paymentMethod(paymentStrategy.getPaymentMethodName())
+                .paymentMethod(paymentMethodName)
                 .deliveryMethod(deliveryStrategy.getDeliveryMethodName())
                 .build();
 
@@ -104,54 +255,8 @@ public class OrderService {
                     .unitPrice(product.getPrice())
                     .build();
             order.getItems().add(item);
-
-            // Update stock
-            product.reduceStock(quantity);
-        });
-
-        Order savedOrder = orderRepository.save(order);
-        productRepository.saveAll(products);
-
-        log.info("Order created successfully: {} for user: {}",
-                savedOrder.getId(), user.getEmail());
-
-        return orderMapper.toResponse(savedOrder);
-    }
-
-    @Transactional(readOnly = true)
-    public List<OrderResponse> getUserOrders(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        return orderRepository.findByUser(user).stream()
-                .map(orderMapper::toResponse)
-                .collect(Collectors.toList());
-    }
-
-    @Transactional
-    public void cancelOrder(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
-
-        if (!order.getUser().getId().equals(userId)) {
-            throw new SecurityException("You are not authorized to cancel this order");
-        }
-
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Cannot cancel delivered order");
-        }
-
-        // Restore stock
-        order.getItems().forEach(item -> {
-            Product product = item.getProduct();
-            product.increaseStock(item.getQuantity());
-            productRepository.save(product);
         });
-
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
-
-        log.info("Order cancelled: {}", orderId);
+        return order;
     }
 
     private BigDecimal calculateDiscount(BigDecimal amount, User user) {
@@ -0,0 +1,163 @@
+package io.github.alisa_salimianova.eshop.service;
+
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.dto.request.BulkUpdateProductsRequest;
+import io.github.alisa_salimianova.eshop.dto.response.BulkUpdateReport;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.inventory.ShardedStock;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовое изменение товаров: список патчей или правило вида «категория X, цена * 0.9».
+ * Изменения применяются пачками set-based UPDATE, каждая пачка — в своей короткой транзакции;
+ * кэш и витрина уведомляются один раз по итогам всей операции.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkUpdateService {
+
+    // Absent patch fields are sent as NULL and keep the current column value
+    private static final String PATCH_SQL = """
+            UPDATE products
+            SET name = COALESCE(?, name),
+                description = COALESCE(?, description),
+                price = COALESCE(?, price),
+                category = COALESCE(?, category),
+                stock_quantity = COALESCE(?, stock_quantity),
+                active = COALESCE(?, active),
+                updated_at = ?
+            WHERE id = ?""";
+
+    private static final String RULE_IDS_SQL =
+            "SELECT id FROM products WHERE category = ? AND active = true ORDER BY id";
+
+    // Clamped to the bounds UpdateProductRequest enforces, which also keeps the result inside NUMERIC(10,2):
+    // an overflow would fail the run after earlier chunks had already committed
+    private static final String RULE_SQL = """
+            UPDATE products
+            SET price = LEAST(GREATEST(ROUND(price * ?, 2), 0.01), 1000000.00),
+                updated_at = ?
+            WHERE category = ? AND active = true AND id BETWEEN ? AND ?""";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardedStock shardedStock;
+
+    @Value("${app.bulk-update.chunk-size:500}")
+    private int chunkSize;
+
+    public BulkUpdateReport update(BulkUpdateProductsRequest request) {
+        boolean hasPatches = request.getPatches() != null && !request.getPatches().isEmpty();
+        if (hasPatches == (request.getRule() != null)) {
+            throw new InvalidRequestException("Exactly one of 'patches' or 'rule' must be given");
+        }
+        return hasPatches ? applyPatches(request.getPatches()) : applyRule(request.getRule());
+    }
+
+    private BulkUpdateReport applyPatches(List<BulkUpdateProductsRequest.ProductPatch> patches) {
+        log.info("Applying {} product patches", patches.size());
+        Set<Long> requested = patches.stream()
+                .map(BulkUpdateProductsRequest.ProductPatch::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<ProductResponse> changed = new ArrayList<>();
+        try {
+            for (List<BulkUpdateProductsRequest.ProductPatch> chunk : chunks(patches)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(PATCH_SQL, chunk, chunk.size(), (statement, patch) -> {
+                        statement.setObject(1, patch.getName(), Types.VARCHAR);
+                        statement.setObject(2, patch.getDescription(), Types.VARCHAR);
+                        statement.setObject(3, patch.getPrice(), Types.NUMERIC);
+                        statement.setObject(4, patch.getCategory() != null ? patch.getCategory().name() : null,
+                                Types.VARCHAR);
+                        statement.setObject(5, patch.getStockQuantity(), Types.INTEGER);
+                        statement.setObject(6, patch.getActive(), Types.BOOLEAN);
+                        statement.setTimestamp(7, now);
+                        statement.setLong(8, patch.getId());
+                    });
+                    // Products with stock in buckets take the new quantity there as well
+                    shardedStock.overwrite(chunk.stream()
+                            .filter(patch -> patch.getStockQuantity() != null)
+                            .collect(Collectors.toMap(BulkUpdateProductsRequest.ProductPatch::getId,
+                                    BulkUpdateProductsRequest.ProductPatch::getStockQuantity, (first, last) -> last)));
+                });
+                // Batch update counts are driver-specific, so missing ids are found by reading rows back
+                changed.addAll(productRepository.findResponsesByIdIn(chunk.stream()
+                        .map(BulkUpdateProductsRequest.ProductPatch::getId)
+                        .collect(Collectors.toList())));
+            }
+        } finally {
+            publish(changed);
+        }
+
+        Set<Long> found = changed.stream().map(ProductResponse::getId).collect(Collectors.toSet());
+        List<Long> notFound = requested.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+        return BulkUpdateReport.builder()
+                .updated(found.size())
+                .notFound(notFound)
+                .build();
+    }
+
+    private BulkUpdateReport applyRule(BulkUpdateProductsRequest.PriceRule rule) {
+        log.info("Repricing active {} products by factor {}", rule.getCategory(), rule.getPriceMultiplier());
+        List<Long> ids = jdbcTemplate.queryForList(RULE_IDS_SQL, Long.class, rule.getCategory().name());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<ProductResponse> changed = new ArrayList<>();
+        long updated = 0;
+        try {
+            for (List<Long> chunk : chunks(ids)) {
+                // Ids are sorted, so each chunk is one contiguous range of the category
+                Integer count = transactionTemplate.execute(status -> jdbcTemplate.update(RULE_SQL,
+                        rule.getPriceMultiplier(), now, rule.getCategory().name(),
+                        chunk.get(0), chunk.get(chunk.size() - 1)));
+                updated += count != null ? count : 0;
+                changed.addAll(productRepository.findResponsesByIdIn(chunk));
+            }
+        } finally {
+            publish(changed);
+        }
+        return BulkUpdateReport.builder()
+                .updated(updated)
+                .notFound(List.of())
+                .build();
+    }
+
+    private void publish(List<ProductResponse> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        cacheInvalidator.productsChanged(changed.stream().map(ProductResponse::getId).collect(Collectors.toList()));
+        eventPublisher.publishEvent(new ProductsChangedEvent(changed));
+        log.info("Bulk update changed {} products", changed.size());
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.alisa_salimianova.eshop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка каталога: строки читаются JDBC-курсором прямо в {@link ProductResponse}
+ * и сразу пишутся в ответ, поэтому расход памяти не зависит от размера каталога.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String CSV_HEADER =
+            "id,sku,name,category,manufacturer,price,stockQuantity,rating,ratingCount,updatedAt";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long exportActiveProducts(Format format, OutputStream out) throws IOException {
+        log.info("Exporting active products as {}", format);
+        long count;
+        try (Stream<ProductResponse> products = productRepository.streamActiveResponses()) {
+            count = switch (format) {
+                case NDJSON -> writeNdjson(products.iterator(), out);
+                case CSV -> writeCsv(products.iterator(), out);
+            };
+        }
+        log.info("Exported {} active products", count);
+        return count;
+    }
+
+    private long writeNdjson(Iterator<ProductResponse> products, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        // The response stream belongs to the container, so closing the generator only flushes it
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            while (products.hasNext()) {
+                writer.writeValue(generator, products.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<ProductResponse> products, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (products.hasNext()) {
+            ProductResponse product = products.next();
+            writer.write(String.join(",",
+                    String.valueOf(product.getId()),
+                    csv(product.getSku()),
+                    csv(product.getName()),
+                    product.getCategory().name(),
+                    csv(product.getManufacturer()),
+                    product.getPrice().toPlainString(),
+                    String.valueOf(product.getStockQuantity()),
+                    String.valueOf(product.getRating()),
+                    String.valueOf(product.getRatingCount()),
+                    String.valueOf(product.getUpdatedAt())));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
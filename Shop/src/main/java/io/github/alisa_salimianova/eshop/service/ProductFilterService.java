@@ -0,0 +1,138 @@
+package io.github.alisa_salimianova.eshop.service;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.FacetedPage;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.facet.FacetBitmaps;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.facet.FacetIndex;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
+import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import io.github.alisa_salimianova.eshop.service.interfaces.FilterStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Фасетный поиск: стратегии разбирают критерии в {@link ProductFilter}, который выполняется
+ * пересечением битовых карт витрины, а до её загрузки — одним запросом к базе с пагинацией.
+ */
+@Service
+@Slf4j
+public class ProductFilterService {
+
+    private static final Specification<Product> ACTIVE = (root, query, cb) -> cb.isTrue(root.get("active"));
+
+    private final FacetIndex facetIndex;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final Map<FacetDimension, FilterStrategy> strategies = new EnumMap<>(FacetDimension.class);
+
+    public ProductFilterService(FacetIndex facetIndex, ProductRepository productRepository,
+                                ProductMapper productMapper, List<FilterStrategy> filterStrategies) {
+        this.facetIndex = facetIndex;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        filterStrategies.forEach(strategy -> strategies.put(strategy.dimension(), strategy));
+    }
+
+    public FacetedPage<ProductResponse> filterProducts(Map<FacetDimension, String> criteria, Pageable pageable) {
+        log.info("Filtering products by {}", criteria);
+        ProductFilter filter = compile(criteria);
+        // Both paths must accept the same sorts, or the answer would depend on whether the catalog is loaded
+        if (!CatalogSnapshot.isSortable(pageable.getSort())) {
+            throw new InvalidRequestException("Unsupported sort: " + pageable.getSort());
+        }
+        return facetIndex.current()
+                .map(facets -> filterInMemory(facets, filter, pageable))
+                .orElseGet(() -> filterInDatabase(filter, pageable));
+    }
+
+    /**
+     * Разбирает критерии в одно дерево условий; ошибки формата выбрасываются до выполнения запроса.
+     */
+    public ProductFilter compile(Map<FacetDimension, String> criteria) {
+        List<ProductFilter> filters = new ArrayList<>();
+        criteria.forEach((dimension, value) -> {
+            FilterStrategy strategy = strategies.get(dimension);
+            if (strategy == null) {
+                throw new InvalidRequestException("Unsupported filter: " + dimension);
+            }
+            filters.add(strategy.parse(value));
+        });
+        return ProductFilter.and(filters);
+    }
+
+    private FacetedPage<ProductResponse> filterInMemory(FacetBitmaps facets, ProductFilter filter, Pageable pageable) {
+        RoaringBitmap result = filter.toBitmap(facets);
+        return FacetedPage.<ProductResponse>builder()
+                .content(page(facets.getSnapshot(), result, pageable))
+                .page(pageable.isPaged() ? pageable.getPageNumber() : 0)
+                .size(pageable.isPaged() ? pageable.getPageSize() : result.getCardinality())
+                .totalElements(result.getLongCardinality())
+                .facets(facets.counts(result))
+                .build();
+    }
+
+    private FacetedPage<ProductResponse> filterInDatabase(ProductFilter filter, Pageable pageable) {
+        // The catalog has not been loaded yet: push the whole predicate and the page down to the database
+        Pageable byId = pageable.isPaged() && pageable.getSort().isUnsorted()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"))
+                : pageable;
+        Page<Product> page = productRepository.findAll(ACTIVE.and(filter.toSpecification()), byId);
+        return FacetedPage.<ProductResponse>builder()
+                .content(page.map(productMapper::toResponse).getContent())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .facets(Map.of())
+                .build();
+    }
+
+    private List<ProductResponse> page(CatalogSnapshot snapshot, RoaringBitmap result, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return sortedPage(snapshot, result, pageable);
+        }
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : result.getCardinality();
+        List<ProductResponse> content = new ArrayList<>();
+        if (offset >= result.getLongCardinality()) {
+            return content;
+        }
+        PeekableIntIterator ids = result.getIntIterator();
+        // select() finds the first id of the page by rank without walking the skipped ones
+        ids.advanceIfNeeded(result.select((int) offset));
+        while (ids.hasNext() && content.size() < limit) {
+            content.add(snapshot.toResponse(snapshot.indexOf(ids.next())));
+        }
+        return content;
+    }
+
+    private List<ProductResponse> sortedPage(CatalogSnapshot snapshot, RoaringBitmap result, Pageable pageable) {
+        Comparator<Integer> order = snapshot.rowOrder(pageable.getSort()).orElseThrow();
+        List<Integer> rows = new ArrayList<>(result.getCardinality());
+        result.forEach((int id) -> rows.add(snapshot.indexOf(id)));
+        rows.sort(order);
+        return rows.stream()
+                .skip(pageable.isPaged() ? pageable.getOffset() : 0)
+                .limit(pageable.isPaged() ? pageable.getPageSize() : rows.size())
+                .map(snapshot::toResponse)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,292 @@
+package io.github.alisa_salimianova.eshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.dto.request.CreateProductRequest;
+import io.github.alisa_salimianova.eshop.dto.response.ImportReport;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт товаров из CSV или NDJSON.
+ * Строки читаются потоком и проверяются теми же ограничениями, что и {@link CreateProductRequest};
+ * дубликаты SKU ищутся в базе пачками через {@code IN}, новые товары вставляются пакетным JDBC INSERT.
+ * Кэш и витрина уведомляются один раз на весь импорт, а не на каждую строку.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO products (name, description, price, category, manufacturer, sku, stock_quantity,
+                                  rating, rating_count, active, created_at, updated_at, stock_sharded)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false)""";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "category", "sku", "stockQuantity");
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.import.chunk-size:500}")
+    private int chunkSize;
+
+    public ImportReport importProducts(ProductExportService.Format format, InputStream in) throws IOException {
+        log.info("Importing products from {}", format);
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            RowSource rows = format == ProductExportService.Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            Row row;
+            while ((row = rows.next()) != null) {
+                run.totalRows++;
+                if (accept(run, row)) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    insertChunk(run, chunk);
+                    chunk.clear();
+                }
+            }
+            insertChunk(run, chunk);
+        }
+
+        if (!run.created.isEmpty()) {
+            cacheInvalidator.productCreated(true);
+            eventPublisher.publishEvent(new ProductsChangedEvent(run.created));
+        }
+        log.info("Imported {} of {} products, {} rows failed", run.created.size(), run.totalRows, run.failed);
+        return run.toReport();
+    }
+
+    private boolean accept(ImportRun run, Row row) {
+        if (row.error() != null) {
+            run.fail(row, row.error());
+            return false;
+        }
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(row.request());
+        if (!violations.isEmpty()) {
+            run.fail(row, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return false;
+        }
+        if (!run.seenSkus.add(row.request().getSku())) {
+            run.fail(row, "Duplicate SKU " + row.request().getSku() + " in upload");
+            return false;
+        }
+        return true;
+    }
+
+    private void insertChunk(ImportRun run, List<Row> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>(productRepository.findExistingSkus(
+                chunk.stream().map(row -> row.request().getSku()).collect(Collectors.toList())));
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.request().getSku())) {
+                run.fail(row, "Product with SKU " + row.request().getSku() + " already exists");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        List<Product> products = fresh.stream()
+                .map(row -> productMapper.toEntity(row.request()))
+                .collect(Collectors.toList());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, products, products.size(), (statement, product) -> {
+                        statement.setString(1, product.getName());
+                        statement.setString(2, product.getDescription());
+                        statement.setBigDecimal(3, product.getPrice());
+                        statement.setString(4, product.getCategory().name());
+                        statement.setString(5, product.getManufacturer());
+                        statement.setString(6, product.getSku());
+                        statement.setInt(7, product.getStockQuantity());
+                        statement.setDouble(8, product.getRating());
+                        statement.setInt(9, product.getRatingCount());
+                        statement.setBoolean(10, product.getActive());
+                        statement.setTimestamp(11, now);
+                        statement.setTimestamp(12, now);
+                    }));
+        } catch (DataAccessException e) {
+            // A concurrent writer may have taken one of the SKUs; the whole chunk was rolled back
+            String message = "Rejected by database: " + e.getMostSpecificCause().getMessage();
+            fresh.forEach(row -> run.fail(row, message));
+            log.warn("Import chunk of {} rows rejected", fresh.size(), e);
+            return;
+        }
+        // Generated ids are not portable across batch drivers, so read the new rows back by SKU
+        run.created.addAll(productRepository.findResponsesBySkuIn(
+                products.stream().map(Product::getSku).collect(Collectors.toList())));
+    }
+
+    private RowSource ndjsonRows(BufferedReader lines) {
+        long[] number = {0};
+        return () -> {
+            String line;
+            do {
+                line = lines.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            long row = ++number[0];
+            try {
+                return Row.of(row, objectMapper.readValue(line, CreateProductRequest.class));
+            } catch (JsonProcessingException e) {
+                return Row.failed(row, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RowSource csvRows(Reader reader) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column.toLowerCase(Locale.ROOT)))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new InvalidRequestException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+
+        long[] number = {0};
+        return () -> {
+            List<String> record = records.next();
+            if (record == null) {
+                return null;
+            }
+            long row = ++number[0];
+            CreateProductRequest request = new CreateProductRequest();
+            request.setName(column(record, columns, "name"));
+            request.setDescription(column(record, columns, "description"));
+            request.setManufacturer(column(record, columns, "manufacturer"));
+            request.setSku(column(record, columns, "sku"));
+            try {
+                String price = column(record, columns, "price");
+                request.setPrice(price != null ? new BigDecimal(price) : null);
+            } catch (NumberFormatException e) {
+                return Row.failed(row, request.getSku(), "Invalid price");
+            }
+            try {
+                String category = column(record, columns, "category");
+                request.setCategory(category != null ? Category.valueOf(category.toUpperCase(Locale.ROOT)) : null);
+            } catch (IllegalArgumentException e) {
+                return Row.failed(row, request.getSku(), "Unknown category");
+            }
+            try {
+                String stock = column(record, columns, "stockquantity");
+                request.setStockQuantity(stock != null ? Integer.valueOf(stock) : null);
+            } catch (NumberFormatException e) {
+                return Row.failed(row, request.getSku(), "Invalid stock quantity");
+            }
+            return Row.of(row, request);
+        };
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+
+    private record Row(long number, String sku, CreateProductRequest request, String error) {
+
+        static Row of(long number, CreateProductRequest request) {
+            return new Row(number, request.getSku(), request, null);
+        }
+
+        static Row failed(long number, String sku, String error) {
+            return new Row(number, sku, null, error);
+        }
+    }
+
+    private static final class ImportRun {
+        private final Set<String> seenSkus = new HashSet<>();
+        private final List<ProductResponse> created = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long failed;
+
+        private void fail(Row row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.RowError(row.number(), row.sku(), message));
+            }
+        }
+
+        private ImportReport toReport() {
+            return ImportReport.builder()
+                    .totalRows(totalRows)
+                    .imported(created.size())
+                    .failed(failed)
+                    .errorsTruncated(failed > errors.size())
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -1,25 +1,44 @@
 package io.github.alisa_salimianova.eshop.service;
 
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.cache.SingleFlight;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.catalog.PriceIndex;
+import io.github.alisa_salimianova.eshop.catalog.ProductCatalog;
 import io.github.alisa_salimianova.eshop.dto.request.CreateProductRequest;
 import io.github.alisa_salimianova.eshop.dto.request.UpdateProductRequest;
+import io.github.alisa_salimianova.eshop.dto.response.CursorPage;
 import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.event.ProductsChangedEvent;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
 import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.github.alisa_salimianova.eshop.inventory.ShardedStock;
 import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
 import io.github.alisa_salimianova.eshop.model.entity.Product;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.pagination.ProductCursor;
+import io.github.alisa_salimianova.eshop.rating.RatingWriteBehind;
 import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import io.github.alisa_salimianova.eshop.search.ProductSearchIndex;
+import io.github.alisa_salimianova.eshop.search.SearchHits;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,102 +48,223 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final ProductCatalog productCatalog;
+    private final PriceIndex priceIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final RatingWriteBehind ratingWriteBehind;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight productLoads;
+    private final ShardedStock shardedStock;
+
+    // Catalog reads are served from the in-memory snapshot and only fall back to JPA until it is loaded;
+    // list reads select straight into ProductResponse, single rows stay on em.find which is cheaper there
 
-    @Transactional(readOnly = true)
     @Cacheable(value = "products", key = "#id")
     public ProductResponse getProductById(Long id) {
         log.info("Fetching product with id: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        return productMapper.toResponse(product);
+        return loadProduct(id);
     }
 
-    @Transactional(readOnly = true)
     @Cacheable(value = "products", key = "'all-active'")
     public List<ProductResponse> getAllActiveProducts() {
         log.info("Fetching all active products");
-        return productRepository.findByActiveTrue().stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        return loadAllActiveProducts();
+    }
+
+    // Refresh-ahead: entries are overwritten shortly before they expire, so readers never wait for a reload
+
+    @CachePut(value = "products", key = "#id")
+    public ProductResponse refreshProduct(Long id) {
+        return loadProduct(id);
+    }
+
+    @CachePut(value = "products", key = "'all-active'")
+    public List<ProductResponse> refreshAllActiveProducts() {
+        return loadAllActiveProducts();
+    }
+
+    public Optional<String> getProductETag(Long id) {
+        return productCatalog.productVersion(id);
+    }
+
+    public Optional<String> getCatalogETag() {
+        return productCatalog.catalogVersion();
     }
 
-    @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByCategory(Category category, Pageable pageable) {
         log.info("Fetching products by category: {}", category);
-        return productRepository.findByCategory(category, pageable)
-                .map(productMapper::toResponse);
+        return productCatalog.findByCategory(category, pageable)
+                .orElseGet(() -> productRepository.findActiveResponsesByCategory(category, pageable));
     }
 
-    @Transactional(readOnly = true)
-    public List<ProductResponse> getProductsUnderPrice(BigDecimal maxPrice) {
+    public CursorPage<ProductResponse> getActiveProductsAfter(String after, int size, ProductCursor.SortKey sortKey) {
+        ProductCursor cursor = ProductCursor.decode(after, sortKey);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<ProductResponse> rows = sortKey == ProductCursor.SortKey.PRICE
+                ? productRepository.findActiveAfterPrice(cursor.price(), cursor.id(), limit)
+                : productRepository.findActiveAfterId(cursor.id(), limit);
+        return toCursorPage(rows, size, sortKey);
+    }
+
+    public CursorPage<ProductResponse> getProductsByCategoryAfter(Category category, String after, int size,
+                                                                  ProductCursor.SortKey sortKey) {
+        log.info("Fetching products by category: {} after cursor", category);
+        ProductCursor cursor = ProductCursor.decode(after, sortKey);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<ProductResponse> rows = sortKey == ProductCursor.SortKey.PRICE
+                ? productRepository.findByCategoryAfterPrice(category, cursor.price(), cursor.id(), limit)
+                : productRepository.findByCategoryAfterId(category, cursor.id(), limit);
+        return toCursorPage(rows, size, sortKey);
+    }
+
+    public List<ProductResponse> getProductsUnderPrice(BigDecimal maxPrice, Category category) {
         log.info("Fetching products under price: {}", maxPrice);
-        return productRepository.findProductsUnderPrice(maxPrice).stream()
-                .map(productMapper::toResponse)
+        return priceIndex.findAtMost(CatalogSnapshot.toCents(maxPrice), category)
+                .orElseGet(() -> productRepository.findResponsesUnderPrice(maxPrice).stream()
+                        .filter(product -> category == null || product.getCategory() == category)
+                        .collect(Collectors.toList()));
+    }
+
+    public List<ProductResponse> getProductsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Category category) {
+        log.info("Fetching products priced between {} and {}", minPrice, maxPrice);
+        return priceIndex.findBetween(CatalogSnapshot.toCents(minPrice), CatalogSnapshot.toCents(maxPrice), category)
+                .orElseGet(() -> productRepository.findResponsesInPriceRange(minPrice, maxPrice).stream()
+                        .filter(product -> category == null || product.getCategory() == category)
+                        .collect(Collectors.toList()));
+    }
+
+    public List<ProductResponse> getCheapestProducts(int limit, Category category) {
+        log.info("Fetching {} cheapest products", limit);
+        return priceIndex.findCheapest(limit, category)
+                .orElseGet(() -> {
+                    Sort byPrice = Sort.by("price", "id");
+                    PageRequest page = PageRequest.of(0, limit, byPrice);
+                    return category == null
+                            ? productRepository.findActiveResponses(page).getContent()
+                            : productRepository.findActiveResponsesByCategory(category, page).getContent();
+                });
+    }
+
+    public Page<ProductResponse> searchProducts(String query, Pageable pageable) {
+        log.info("Searching products: {}", query);
+        if (!productSearchIndex.isReady()) {
+            // Until the index is built only a name substring match is available
+            List<ProductResponse> matches = productRepository.findByNameContainingIgnoreCase(query).stream()
+                    .filter(Product::getActive)
+                    .map(productMapper::toResponse)
+                    .collect(Collectors.toList());
+            int from = (int) Math.min(pageable.getOffset(), matches.size());
+            int to = Math.min(from + pageable.getPageSize(), matches.size());
+            return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+        }
+
+        SearchHits hits = productSearchIndex.search(query, pageable.getOffset(), pageable.getPageSize());
+        List<ProductResponse> content = Arrays.stream(hits.productIds())
+                .mapToObj(productCatalog::findById)
+                .flatMap(Optional::stream)
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, hits.total());
+    }
+
+    private ProductResponse loadProduct(Long id) {
+        // Concurrent misses for the same id share one load
+        return productLoads.load(id, () -> productCatalog.findById(id)
+                .orElseGet(() -> productRepository.findById(id)
+                        .map(productMapper::toResponse)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id))));
+    }
+
+    private List<ProductResponse> loadAllActiveProducts() {
+        return productLoads.load(ProductCacheInvalidator.ALL_ACTIVE_KEY, () -> productCatalog.current()
+                .map(CatalogSnapshot::findAll)
+                .orElseGet(productRepository::findActiveResponses));
+    }
+
+    private CursorPage<ProductResponse> toCursorPage(List<ProductResponse> rows, int size,
+                                                     ProductCursor.SortKey sortKey) {
+        // One extra row was requested to learn whether another page exists
+        boolean hasNext = rows.size() > size;
+        List<ProductResponse> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductResponse last = page.get(page.size() - 1);
+            nextCursor = new ProductCursor(sortKey, last.getPrice(), last.getId()).encode();
+        }
+        return CursorPage.<ProductResponse>builder()
+                .content(page)
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "products", allEntries = true),
-            @CacheEvict(value = "products", key = "'all-active'")
-    })
     public ProductResponse createProduct(CreateProductRequest request) {
         log.info("Creating new product: {}", request.getName());
 
         // Check if SKU already exists
         if (productRepository.findBySku(request.getSku()).isPresent()) {
-            throw new IllegalArgumentException("Product with SKU " + request.getSku() + " already exists");
+            throw new InvalidRequestException("Product with SKU " + request.getSku() + " already exists");
         }
 
         Product product = productMapper.toEntity(request);
         Product savedProduct = productRepository.save(product);
         log.info("Product created with id: {}", savedProduct.getId());
+        cacheInvalidator.productCreated(savedProduct.getActive());
 
-        return productMapper.toResponse(savedProduct);
+        ProductResponse response = productMapper.toResponse(savedProduct);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(response));
+        return response;
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "products", key = "#id"),
-            @CacheEvict(value = "products", allEntries = true)
-    })
     public ProductResponse updateProduct(Long id, UpdateProductRequest request) {
         log.info("Updating product with id: {}", id);
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
 
+        boolean wasActive = product.getActive();
         productMapper.updateEntity(product, request);
-        Product updatedProduct = productRepository.save(product);
+        // Flushed now, so @PreUpdate has set updatedAt before the response and the event are built
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        if (request.getStockQuantity() != null) {
+            shardedStock.overwrite(Map.of(id, request.getStockQuantity()));
+        }
         log.info("Product updated with id: {}", id);
+        cacheInvalidator.productChanged(id, wasActive, updatedProduct.getActive());
 
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = productMapper.toResponse(updatedProduct);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(response));
+        return response;
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#id")
     public void deleteProduct(Long id) {
         log.info("Deleting product with id: {}", id);
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
 
+        boolean wasActive = product.getActive();
         product.setActive(false);
-        productRepository.save(product);
+        productRepository.saveAndFlush(product);
         log.info("Product deactivated with id: {}", id);
+        cacheInvalidator.productChanged(id, wasActive, false);
+        eventPublisher.publishEvent(ProductsChangedEvent.of(productMapper.toResponse(product)));
     }
 
-    @Transactional
     public void rateProduct(Long productId, Integer rating) {
         if (rating < 1 || rating > 5) {
-            throw new IllegalArgumentException("Rating must be between 1 and 5");
+            throw new InvalidRequestException("Rating must be between 1 and 5");
+        }
+        if (productCatalog.findById(productId).isEmpty() && !productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
         }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-
-        product.addRating(rating);
-        productRepository.save(product);
+        // Aggregated in memory and written in batches; caches and the catalog follow after the flush
+        ratingWriteBehind.record(productId, rating);
         log.info("Product {} rated with {} stars", productId, rating);
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,14 @@
 package io.github.alisa_salimianova.eshop.service;
 
+import io.github.alisa_salimianova.eshop.catalog.TopRatedIndex;
 import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
 import io.github.alisa_salimianova.eshop.model.entity.Product;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -17,6 +21,8 @@ public class RecommendationService {
 
     private final ProductService productService;
     private final OrderService orderService;
+    private final TopRatedIndex topRatedIndex;
+    private final ProductRepository productRepository;
 
     public List<ProductResponse> getRecommendationsForUser(Long userId) {
         log.info("Generating recommendations for user: {}", userId);
@@ -48,11 +54,15 @@ public class RecommendationService {
                 .collect(Collectors.toList());
     }
 
-    public List<ProductResponse> getTopRatedProducts() {
-        log.info("Getting top rated products");
-
-        // We need to add this method to ProductRepository
-        // For now, we'll use a placeholder
-        return Collections.emptyList();
+    public List<ProductResponse> getTopRatedProducts(int limit, Category category) {
+        log.info("Getting top {} rated products", limit);
+        return topRatedIndex.top(limit, category)
+                .orElseGet(() -> {
+                    PageRequest page = PageRequest.of(0, limit,
+                            Sort.by(Sort.Order.desc("rating"), Sort.Order.desc("ratingCount"), Sort.Order.asc("id")));
+                    return category == null
+                            ? productRepository.findActiveResponses(page).getContent()
+                            : productRepository.findActiveResponsesByCategory(category, page).getContent();
+                });
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package io.github.alisa_salimianova.eshop.service.interfaces;
+
+import io.github.alisa_salimianova.eshop.payment.PaymentResult;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Неблокирующий платёжный провайдер: результат завершается, не занимая вызывающий поток.
+ * Блокирующие {@link PaymentStrategy} приводятся к нему через
+ * {@link io.github.alisa_salimianova.eshop.payment.PaymentGateway}.
+ */
+public interface AsyncPaymentStrategy {
+    CompletableFuture<PaymentResult> processPayment(BigDecimal amount);
+    String getPaymentMethodName();
+}
@@ -1,8 +1,14 @@
 package io.github.alisa_salimianova.eshop.service.interfaces;
 
-import io.github.alisa_salimianova.eshop.model.entity.Product;
-import java.util.List;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
 
 public interface FilterStrategy {
-    List<Product> filter(List<Product> products, String criteria);
-}
\ No newline at end of file
+
+    FacetDimension dimension();
+
+    /**
+     * Разбирает и проверяет критерий один раз, возвращая типизированное условие.
+     */
+    ProductFilter parse(String criteria);
+}
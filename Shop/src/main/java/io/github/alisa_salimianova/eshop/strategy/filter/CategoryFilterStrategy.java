@@ -1,23 +1,27 @@
 package io.github.alisa_salimianova.eshop.strategy.filter;
 
-import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
 import io.github.alisa_salimianova.eshop.service.interfaces.FilterStrategy;
+import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
+@Component
 public class CategoryFilterStrategy implements FilterStrategy {
 
     @Override
-    public List<Product> filter(List<Product> products, String criteria) {
+    public FacetDimension dimension() {
+        return FacetDimension.CATEGORY;
+    }
+
+    @Override
+    public ProductFilter parse(String criteria) {
         try {
             Category category = Category.valueOf(criteria.toUpperCase());
-            return products.stream()
-                    .filter(product -> product.getCategory() == category)
-                    .collect(Collectors.toList());
+            return new ProductFilter.CategoryIs(category);
         } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Неверная категория: " + criteria +
+            throw new InvalidRequestException("Неверная категория: " + criteria +
                     ". Доступные категории: " + getAvailableCategories());
         }
     }
@@ -29,4 +33,4 @@ public class CategoryFilterStrategy implements FilterStrategy {
         }
         return sb.substring(0, sb.length() - 2);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package io.github.alisa_salimianova.eshop.strategy.filter;
+
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
+import io.github.alisa_salimianova.eshop.service.interfaces.FilterStrategy;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ManufacturerFilterStrategy implements FilterStrategy {
+
+    @Override
+    public FacetDimension dimension() {
+        return FacetDimension.MANUFACTURER;
+    }
+
+    @Override
+    public ProductFilter parse(String criteria) {
+        if (criteria == null || criteria.isBlank()) {
+            throw new InvalidRequestException("Производитель не указан");
+        }
+        return new ProductFilter.ManufacturerIs(criteria.trim());
+    }
+}
@@ -1,32 +1,36 @@
 package io.github.alisa_salimianova.eshop.strategy.filter;
 
-import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
 import io.github.alisa_salimianova.eshop.service.interfaces.FilterStrategy;
+import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.stream.Collectors;
 
+@Component
 public class PriceFilterStrategy implements FilterStrategy {
 
-    private static final double MAX_PRICE_LIMIT = 10000.0;
+    private static final BigDecimal MAX_PRICE_LIMIT = BigDecimal.valueOf(10000);
 
     @Override
-    public List<Product> filter(List<Product> products, String criteria) {
-        double maxPrice;
+    public FacetDimension dimension() {
+        return FacetDimension.PRICE;
+    }
+
+    @Override
+    public ProductFilter parse(String criteria) {
+        BigDecimal maxPrice;
         try {
-            maxPrice = Double.parseDouble(criteria);
-            if (maxPrice < 0 || maxPrice > MAX_PRICE_LIMIT) {
-                throw new IllegalArgumentException("Максимальная цена должна быть от 0 до " + MAX_PRICE_LIMIT);
-            }
+            maxPrice = new BigDecimal(criteria.trim());
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Неверный формат цены: " + criteria);
+            throw new InvalidRequestException("Неверный формат цены: " + criteria);
+        }
+        if (maxPrice.signum() < 0 || maxPrice.compareTo(MAX_PRICE_LIMIT) > 0) {
+            throw new InvalidRequestException("Максимальная цена должна быть от 0 до " + MAX_PRICE_LIMIT);
         }
 
-        BigDecimal maxPriceDecimal = BigDecimal.valueOf(maxPrice);
-
-        return products.stream()
-                .filter(product -> product.getPrice().compareTo(maxPriceDecimal) <= 0)
-                .collect(Collectors.toList());
+        return new ProductFilter.MaxPrice(maxPrice, CatalogSnapshot.toCents(maxPrice));
     }
-}
\ No newline at end of file
+}
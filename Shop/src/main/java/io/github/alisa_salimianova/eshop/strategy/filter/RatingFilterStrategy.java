@@ -0,0 +1,33 @@
+package io.github.alisa_salimianova.eshop.strategy.filter;
+
+import io.github.alisa_salimianova.eshop.exception.InvalidRequestException;
+import io.github.alisa_salimianova.eshop.facet.FacetDimension;
+import io.github.alisa_salimianova.eshop.filter.ProductFilter;
+import io.github.alisa_salimianova.eshop.service.interfaces.FilterStrategy;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RatingFilterStrategy implements FilterStrategy {
+
+    private static final double MAX_RATING = 5.0;
+
+    @Override
+    public FacetDimension dimension() {
+        return FacetDimension.RATING;
+    }
+
+    @Override
+    public ProductFilter parse(String criteria) {
+        double minRating;
+        try {
+            minRating = Double.parseDouble(criteria);
+            if (minRating < 0 || minRating > MAX_RATING) {
+                throw new InvalidRequestException("Минимальный рейтинг должен быть от 0 до " + MAX_RATING);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Неверный формат рейтинга: " + criteria);
+        }
+
+        return new ProductFilter.MinRating(minRating);
+    }
+}
@@ -1,20 +1,23 @@
 package io.github.alisa_salimianova.eshop.strategy.payment;
 
 import io.github.alisa_salimianova.eshop.service.interfaces.PaymentStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 
+@Component
+@Slf4j
 public class PayPalPaymentStrategy implements PaymentStrategy {
 
     @Override
     public boolean processPayment(double amount) {
         if (amount <= 0) {
-            System.out.println("Сумма оплаты должна быть положительной");
+            log.error("Payment amount must be positive: {}", amount);
             return false;
         }
 
         // Имитация обработки платежа
-        System.out.printf("Обработка платежа через PayPal на сумму $%.2f%n", amount);
-        System.out.println("Перенаправление на сайт PayPal...");
-        System.out.println("Платеж успешно обработан!");
+        log.info("Processing PayPal payment for amount: {}", amount);
+        log.info("PayPal payment processed successfully");
         return true;
     }
 
@@ -22,4 +25,4 @@ public class PayPalPaymentStrategy implements PaymentStrategy {
     public String getPaymentMethodName() {
         return "PayPal";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package io.github.alisa_salimianova.eshop.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.encoding.CompactEnvelope;
+import io.github.alisa_salimianova.eshop.encoding.ProtobufSchemas;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кодирование и декодирование списка товаров в конверте ответа: JSON против CBOR, Smile и Protobuf.
+ * Размер тела (и его gzip) печатается при подготовке каждого набора параметров.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BinaryEncodingBenchmark {
+
+    public enum Format { JSON, CBOR, SMILE, PROTOBUF }
+
+    @Param({"JSON", "CBOR", "SMILE", "PROTOBUF"})
+    private Format format;
+
+    @Param({"1", "1000"})
+    private int products;
+
+    private ApiResponseDto<List<ProductResponse>> envelope;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ProductResponse> list = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            list.add(ProductResponse.builder()
+                    .id((long) i)
+                    .name("Benchmark product " + i)
+                    .description("Description of benchmark product " + i)
+                    .price(BigDecimal.valueOf(100 + i, 2))
+                    .category(Category.values()[i % Category.values().length])
+                    .manufacturer("Manufacturer " + i % 50)
+                    .sku("BENCH-" + i)
+                    .stockQuantity(10)
+                    .rating(4.5)
+                    .ratingCount(i)
+                    .active(true)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        envelope = ApiResponseDto.success(list);
+
+        // Mappers are configured as the HTTP message converters configure them
+        if (format == Format.PROTOBUF) {
+            ProtobufSchemas schemas = new ProtobufSchemas(Jackson2ObjectMapperBuilder.json());
+            JavaType type = schemas.envelope(schemas.mapper().getTypeFactory()
+                    .constructCollectionType(List.class, ProductResponse.class));
+            ProtobufSchemas.NamedSchema schema = schemas.resolve(type).orElseThrow();
+            writer = schemas.mapper().writerFor(type).with(schema.schema());
+            reader = schemas.mapper().readerFor(type).with(schema.schema());
+        } else {
+            ObjectMapper mapper = mapper(format);
+            JavaType type = mapper.getTypeFactory().constructParametricType(ApiResponseDto.class,
+                    mapper.getTypeFactory().constructCollectionType(List.class, ProductResponse.class));
+            writer = mapper.writerFor(type);
+            reader = mapper.readerFor(type);
+        }
+        encoded = writer.writeValueAsBytes(envelope);
+        System.out.printf("%n%s, %d products: %d bytes, %d gzipped%n", format, products, encoded.length, gzippedSize(encoded));
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static ObjectMapper mapper(Format format) {
+        // Same date handling as the mapper Spring Boot configures
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return switch (format) {
+            case CBOR -> builder.factory(new CBORFactory()).mixIn(ApiResponseDto.class, CompactEnvelope.class).build();
+            case SMILE -> builder.factory(new SmileFactory()).mixIn(ApiResponseDto.class, CompactEnvelope.class).build();
+            default -> builder.build();
+        };
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(BinaryEncodingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.alisa_salimianova.eshop.benchmark;
+
+import io.github.alisa_salimianova.eshop.EshopApplication;
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.catalog.PriceIndex;
+import io.github.alisa_salimianova.eshop.catalog.ProductCatalog;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сравнение индекса цен с запросами репозитория на H2 (профиль test).
+ * Запуск: main-метод этого класса из тестового classpath; параметры JMH передаются аргументами.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PriceIndexBenchmark {
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("50.00");
+    private static final int CHEAPEST = 20;
+
+    @Param({"1000", "10000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductMapper productMapper;
+    private PriceIndex priceIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EshopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN", "logging.level.io.github.alisa_salimianova.eshop=WARN")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        productMapper = context.getBean(ProductMapper.class);
+        priceIndex = context.getBean(PriceIndex.class);
+
+        Random random = new Random(42);
+        Category[] categories = Category.values();
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            batch.add(Product.builder()
+                    .name("Benchmark product " + i)
+                    .price(BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2))
+                    .category(categories[random.nextInt(categories.length)])
+                    .sku("BENCH-" + i)
+                    .stockQuantity(10)
+                    .build());
+        }
+        productRepository.saveAll(batch);
+        // Rebuild the catalog and its listeners from the seeded table
+        context.getBean(ProductCatalog.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponse> underPriceRepository() {
+        return productRepository.findProductsUnderPrice(MAX_PRICE).stream()
+                .map(productMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductResponse> underPriceIndex() {
+        return priceIndex.findAtMost(CatalogSnapshot.toCents(MAX_PRICE), null).orElseThrow();
+    }
+
+    @Benchmark
+    public List<ProductResponse> cheapestRepository() {
+        return productRepository.findByActiveTrue(PageRequest.of(0, CHEAPEST, Sort.by("price", "id")))
+                .map(productMapper::toResponse)
+                .getContent();
+    }
+
+    @Benchmark
+    public List<ProductResponse> cheapestIndex() {
+        return priceIndex.findCheapest(CHEAPEST, null).orElseThrow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PriceIndexBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
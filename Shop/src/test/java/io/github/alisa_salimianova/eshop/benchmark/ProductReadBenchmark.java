@@ -0,0 +1,101 @@
+package io.github.alisa_salimianova.eshop.benchmark;
+
+import io.github.alisa_salimianova.eshop.EshopApplication;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение каталога через сущность и ProductMapper против проекции прямо в ProductResponse.
+ * Сущности читаются в readOnly-транзакции, как раньше в сервисе.
+ * Аллокации на операцию — с профилировщиком: {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductReadBenchmark {
+
+    private static final int PRODUCTS = 5_000;
+    private static final int PAGE_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductMapper productMapper;
+    private TransactionTemplate readOnly;
+    private PageRequest page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EshopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN", "logging.level.io.github.alisa_salimianova.eshop=WARN")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        productMapper = context.getBean(ProductMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Category[] categories = Category.values();
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            batch.add(Product.builder()
+                    .name("Benchmark product " + i)
+                    .description("Description of benchmark product " + i)
+                    .price(BigDecimal.valueOf(100 + i, 2))
+                    .category(categories[i % categories.length])
+                    .manufacturer("Manufacturer " + i % 50)
+                    .sku("BENCH-" + i)
+                    .stockQuantity(10)
+                    .build());
+        }
+        productRepository.saveAll(batch);
+        page = PageRequest.of(10, PAGE_SIZE, Sort.by("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponse> pageViaEntity() {
+        return readOnly.execute(status -> productRepository.findByActiveTrue(page)
+                .map(productMapper::toResponse)
+                .getContent());
+    }
+
+    @Benchmark
+    public List<ProductResponse> pageViaProjection() {
+        return productRepository.findActiveResponses(page).getContent();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductReadBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.alisa_salimianova.eshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.alisa_salimianova.eshop.cache.SerializedBody;
+import io.github.alisa_salimianova.eshop.cache.SerializedEnvelope;
+import io.github.alisa_salimianova.eshop.dto.response.ApiResponseDto;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ответ на чтение каталога: сериализация конверта Jackson (и сжатие, как у server.compression)
+ * против вклейки готовых байтов из {@link SerializedBody}.
+ * Аллокации на операцию — с профилировщиком: {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializedResponseBenchmark {
+
+    @Param({"1", "1000"})
+    private int products;
+
+    private ObjectMapper objectMapper;
+    private Object data;
+    private SerializedBody body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Same date handling as the mapper Spring Boot configures
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        List<ProductResponse> list = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            list.add(ProductResponse.builder()
+                    .id((long) i)
+                    .name("Benchmark product " + i)
+                    .description("Description of benchmark product " + i)
+                    .price(BigDecimal.valueOf(100 + i, 2))
+                    .category(Category.values()[i % Category.values().length])
+                    .manufacturer("Manufacturer " + i % 50)
+                    .sku("BENCH-" + i)
+                    .stockQuantity(10)
+                    .rating(4.5)
+                    .ratingCount(i)
+                    .active(true)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        data = products == 1 ? list.get(0) : list;
+        body = SerializedBody.of("v1", objectMapper.writeValueAsBytes(data), 1024);
+    }
+
+    @Benchmark
+    public void jackson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), ApiResponseDto.success(data));
+    }
+
+    @Benchmark
+    public void jacksonGzip() throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(OutputStream.nullOutputStream())) {
+            objectMapper.writeValue(gzip, ApiResponseDto.success(data));
+        }
+    }
+
+    @Benchmark
+    public void spliced() throws IOException {
+        SerializedEnvelope.success(body, false).writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void splicedGzip() throws IOException {
+        SerializedEnvelope.success(body, true).writeTo(OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SerializedResponseBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.alisa_salimianova.eshop.benchmark;
+
+import io.github.alisa_salimianova.eshop.EshopApplication;
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import io.github.alisa_salimianova.eshop.inventory.StockRebalancer;
+import io.github.alisa_salimianova.eshop.inventory.StockUpdater;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Списание одного и того же товара из 8 потоков: одна строка products против остатка в корзинах.
+ * workMicros — работа заказа в той же транзакции после списания (вставка заказа, запись платежа),
+ * пока блокировка строки удерживается.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StockContentionBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    public enum Layout { SINGLE_ROW, SHARDED }
+
+    @Param({"SINGLE_ROW", "SHARDED"})
+    private Layout layout;
+
+    @Param({"0", "1000"})
+    private int workMicros;
+
+    private ConfigurableApplicationContext context;
+    private StockUpdater stockUpdater;
+    private TransactionTemplate transactionTemplate;
+    private Map<Long, Integer> order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EshopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN", "logging.level.io.github.alisa_salimianova.eshop=WARN",
+                        "spring.datasource.hikari.maximum-pool-size=16")
+                .run();
+        // Default properties lose to application.yml, so the mode is switched on the bound bean
+        InventoryProperties.Sharding sharding = context.getBean(InventoryProperties.class).getSharding();
+        sharding.setEnabled(layout == Layout.SHARDED);
+        sharding.setMinStock(STOCK);
+        stockUpdater = context.getBean(StockUpdater.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        Product product = context.getBean(ProductRepository.class).save(Product.builder()
+                .name("Contended product")
+                .price(new BigDecimal("10.00"))
+                .category(Category.HOME)
+                .sku("CONTENDED-1")
+                .stockQuantity(STOCK)
+                .build());
+        context.getBean(StockRebalancer.class).rebalance();
+        order = Map.of(product.getId(), 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> decrement() {
+        return transactionTemplate.execute(status -> {
+            List<Long> failed = stockUpdater.decrement(order);
+            if (workMicros > 0) {
+                LockSupport.parkNanos(workMicros * 1_000L);
+            }
+            return failed;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(StockContentionBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedEnvelopeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writeTo_shouldProduceGzipThatInflatesToThePlainEnvelope() throws IOException {
+        // Arrange: large enough for several deflate output buffers
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5_000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"Product ").append(i).append("\"}");
+        }
+        SerializedBody body = SerializedBody.of("v1", json.append(']').toString().getBytes(StandardCharsets.UTF_8), 1024);
+        SerializedEnvelope compressed = SerializedEnvelope.success(body, true);
+
+        // Act
+        byte[] gzip = write(compressed);
+        byte[] inflated = new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes();
+
+        // Assert
+        assertTrue(compressed.isGzip());
+        assertEquals(compressed.contentLength(), gzip.length);
+        assertTrue(gzip.length < inflated.length / 4);
+        JsonNode envelope = objectMapper.readTree(inflated);
+        assertTrue(envelope.get("success").asBoolean());
+        assertEquals(5_000, envelope.get("data").size());
+        assertEquals("Product 4999", envelope.at("/data/4999/name").asText());
+        assertTrue(envelope.hasNonNull("timestamp"));
+    }
+
+    @Test
+    void success_shouldFallBackToPlainBytesForSmallBodies() throws IOException {
+        // Arrange
+        SerializedBody body = SerializedBody.of("v1", "{\"id\":1}".getBytes(StandardCharsets.UTF_8), 1024);
+
+        // Act
+        SerializedEnvelope envelope = SerializedEnvelope.success(body, true);
+        byte[] bytes = write(envelope);
+
+        // Assert
+        assertFalse(body.hasGzip());
+        assertFalse(envelope.isGzip());
+        assertEquals(envelope.contentLength(), bytes.length);
+        assertEquals(1, objectMapper.readTree(bytes).at("/data/id").asInt());
+    }
+
+    @Test
+    void combineCrc_shouldMatchTheCrcOfTheConcatenation() {
+        // Arrange
+        byte[] first = "{\"success\":true,\"data\":".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "[1,2,3],\"timestamp\":\"2024-01-01T00:00:00\"}".getBytes(StandardCharsets.UTF_8);
+        CRC32 whole = new CRC32();
+        whole.update(first);
+        whole.update(second);
+
+        // Act
+        long combined = SerializedEnvelope.combineCrc(crc(first), crc(second), second.length);
+
+        // Assert
+        assertEquals(whole.getValue(), combined);
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static byte[] write(SerializedEnvelope envelope) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.writeTo(out);
+        return out.toByteArray();
+    }
+}
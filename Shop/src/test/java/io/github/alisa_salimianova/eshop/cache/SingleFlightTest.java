@@ -0,0 +1,136 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_shouldRunOneLoaderForConcurrentMissesOfTheSameKey() throws Exception {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight("products", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.load(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "iPhone";
+            })));
+        }
+        // Wait until the other seven callers have joined the first load
+        while (registry.counter("cache.single.flight", "cache", "products", "result", "coalesced").count() < 7) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("iPhone", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.counter("cache.single.flight", "cache", "products", "result", "leader").count());
+    }
+
+    @Test
+    void load_shouldShareLoaderFailureWithWaiters() throws Exception {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight("products", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(() -> singleFlight.load(2L, () -> {
+            await(release);
+            throw new IllegalArgumentException("boom");
+        }));
+        while (registry.counter("cache.single.flight", "cache", "products", "result", "leader").count() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        Future<Object> follower = executor.submit(() -> singleFlight.load(2L, () -> "unused"));
+        while (registry.counter("cache.single.flight", "cache", "products", "result", "coalesced").count() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        Exception failure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void load_shouldTakeOverAStuckLoadAfterTimeout() {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight("products", Duration.ofMillis(50), registry);
+        CountDownLatch never = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.load(3L, () -> {
+            await(never);
+            return "stuck";
+        }));
+        while (registry.counter("cache.single.flight", "cache", "products", "result", "leader").count() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        String value = singleFlight.load(3L, () -> "fresh");
+
+        // Assert
+        assertEquals("fresh", value);
+        assertEquals(1.0, registry.counter("cache.single.flight", "cache", "products", "result", "timeout").count());
+    }
+
+    @Test
+    void forget_shouldStartAFreshLoadOnTheNextMiss() {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight("products", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.load(4L, () -> {
+            await(release);
+            return "stale";
+        }));
+        while (registry.counter("cache.single.flight", "cache", "products", "result", "leader").count() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        singleFlight.forget(4L);
+        String value = singleFlight.load(4L, () -> "fresh");
+        release.countDown();
+
+        // Assert
+        assertEquals("fresh", value);
+        assertEquals(0.0, registry.counter("cache.single.flight", "cache", "products", "result", "coalesced").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
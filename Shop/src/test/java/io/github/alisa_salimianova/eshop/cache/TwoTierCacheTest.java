@@ -0,0 +1,131 @@
+package io.github.alisa_salimianova.eshop.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two nodes share an in-process stand-in for Redis: a {@link ConcurrentMapCache} as L2
+ * and a synchronous fan-out instead of pub/sub.
+ */
+class TwoTierCacheTest {
+
+    private final List<TwoTierCacheManager> nodes = new CopyOnWriteArrayList<>();
+    private final CacheInvalidationPublisher bus = message -> nodes.forEach(node -> node.handleInvalidation(message));
+
+    private TwoTierCache nodeA;
+    private TwoTierCache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        Cache sharedRemote = new ConcurrentMapCache("products");
+        nodeA = createNode("node-a", sharedRemote);
+        nodeB = createNode("node-b", sharedRemote);
+    }
+
+    @Test
+    void get_shouldPopulateLocalTierFromRemote() {
+        // Arrange
+        nodeA.put(1L, "iPhone");
+
+        // Act
+        Cache.ValueWrapper value = nodeB.get(1L);
+
+        // Assert
+        assertNotNull(value);
+        assertEquals("iPhone", value.get());
+        assertEquals("iPhone", nodeB.getLocal().get(1L).get());
+    }
+
+    @Test
+    void evict_shouldDropLocalEntryOnOtherNodes() {
+        // Arrange
+        nodeA.put(1L, "iPhone");
+        nodeB.get(1L);
+
+        // Act
+        nodeA.evict(1L);
+
+        // Assert
+        assertNull(nodeB.getLocal().get(1L));
+        assertNull(nodeB.get(1L));
+    }
+
+    @Test
+    void put_shouldReplaceStaleLocalEntryOnOtherNodes() {
+        // Arrange
+        nodeA.put("all-active", List.of("iPhone"));
+        nodeB.get("all-active");
+
+        // Act
+        nodeA.put("all-active", List.of("iPhone", "MacBook"));
+
+        // Assert
+        assertEquals(List.of("iPhone", "MacBook"), nodeB.get("all-active").get());
+    }
+
+    @Test
+    void getWithLoader_shouldLoadOnceAndShareThroughRemote() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        String first = nodeA.get(2L, () -> "MacBook-" + loads.incrementAndGet());
+        String second = nodeB.get(2L, () -> "MacBook-" + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("MacBook-1", first);
+        assertEquals("MacBook-1", second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void clear_shouldDropAllLocalEntriesOnOtherNodes() {
+        // Arrange
+        nodeA.put(1L, "iPhone");
+        nodeB.get(1L);
+
+        // Act
+        nodeA.clear();
+
+        // Assert
+        assertNull(nodeB.getLocal().get(1L));
+    }
+
+    @Test
+    void operations_shouldFallBackToLocalTierWhenRemoteFails() {
+        // Arrange
+        Cache down = mock(Cache.class, invocation -> {
+            throw new IllegalStateException("Redis is down");
+        });
+        TwoTierCache node = createNode("node-c", down);
+
+        // Act
+        String loaded = node.get(3L, () -> "Nike Air Max");
+        node.put(4L, "Coffee Maker");
+        node.evict(3L);
+
+        // Assert
+        assertEquals("Nike Air Max", loaded);
+        assertNull(node.get(3L));
+        assertEquals("Coffee Maker", node.get(4L).get());
+        assertDoesNotThrow(node::clear);
+    }
+
+    private TwoTierCache createNode(String nodeId, Cache remote) {
+        CaffeineCache local = new CaffeineCache("products", Caffeine.newBuilder().maximumSize(100).build());
+        TwoTierCache cache = new TwoTierCache("products", local, remote, bus, nodeId);
+        nodes.add(new TwoTierCacheManager(List.of(cache)));
+        return cache;
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @Test
+    void apply_shouldKeepRowsSortedById() {
+        // Act
+        CatalogSnapshot snapshot = CatalogSnapshot.empty()
+                .apply(List.of(product(3L, "49.99", Category.BOOKS, true),
+                        product(1L, "999.99", Category.ELECTRONICS, true),
+                        product(2L, "129.99", Category.SPORTS, true)));
+
+        // Assert
+        assertEquals(3, snapshot.size());
+        assertEquals(1L, snapshot.idAt(0));
+        assertEquals(2L, snapshot.idAt(1));
+        assertEquals(3L, snapshot.idAt(2));
+        assertEquals(new BigDecimal("129.99"), snapshot.toResponse(1).getPrice());
+    }
+
+    @Test
+    void apply_shouldReplaceAndRemoveRowsWithoutTouchingOriginal() {
+        // Arrange
+        CatalogSnapshot original = CatalogSnapshot.empty()
+                .apply(List.of(product(1L, "999.99", Category.ELECTRONICS, true),
+                        product(2L, "129.99", Category.SPORTS, true)));
+
+        // Act
+        CatalogSnapshot updated = original.apply(List.of(
+                product(1L, "899.99", Category.ELECTRONICS, true),
+                product(2L, "129.99", Category.SPORTS, false),
+                product(5L, "9.99", Category.HOME, true)));
+
+        // Assert
+        assertEquals(List.of(1L, 5L), updated.findAll().stream().map(ProductResponse::getId).toList());
+        assertEquals(89999L, updated.priceCentsAt(updated.indexOf(1L)));
+        assertEquals(-1, updated.indexOf(2L));
+        assertEquals(2, original.size());
+        assertEquals(99999L, original.priceCentsAt(original.indexOf(1L)));
+        assertEquals(original.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void findQueries_shouldFilterByCategoryAndPrice() {
+        // Arrange
+        CatalogSnapshot snapshot = CatalogSnapshot.empty()
+                .apply(List.of(product(1L, "999.99", Category.ELECTRONICS, true),
+                        product(2L, "1199.99", Category.ELECTRONICS, true),
+                        product(3L, "49.99", Category.BOOKS, true)));
+
+        // Act & Assert
+        assertEquals(2, snapshot.findByCategory(Category.ELECTRONICS).size());
+        assertEquals(List.of(1L, 3L), snapshot.findUnderPrice(CatalogSnapshot.toCents(new BigDecimal("999.99")))
+                .stream().map(ProductResponse::getId).toList());
+    }
+
+    @Test
+    void apply_shouldShareOneManufacturerInstanceWithExistingRows() {
+        // Arrange
+        CatalogSnapshot original = CatalogSnapshot.empty()
+                .apply(List.of(product(1L, "999.99", Category.ELECTRONICS, true)));
+        ProductResponse added = product(2L, "129.99", Category.SPORTS, true);
+        added.setManufacturer(new String("Manufacturer"));
+
+        // Act
+        CatalogSnapshot updated = original.apply(List.of(added));
+
+        // Assert
+        assertSame(updated.manufacturerAt(updated.indexOf(1L)), updated.manufacturerAt(updated.indexOf(2L)));
+    }
+
+    @Test
+    void loader_shouldBuildOneSnapshotFromPagesInIdOrder() {
+        // Act
+        CatalogSnapshot snapshot = new CatalogSnapshot.Loader()
+                .append(List.of(product(1L, "999.99", Category.ELECTRONICS, true),
+                        product(2L, "49.99", Category.BOOKS, false)))
+                .append(List.of(product(3L, "1199.99", Category.ELECTRONICS, true)))
+                .build();
+
+        // Assert
+        assertEquals(2, snapshot.size());
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(2, snapshot.countInCategory(Category.ELECTRONICS));
+        assertEquals(3L, snapshot.idAt(snapshot.categoryRowAt(Category.ELECTRONICS, 1)));
+        assertEquals(0, snapshot.countInCategory(Category.BOOKS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CatalogSnapshot.Loader().append(List.of(product(2L, "1.00", Category.HOME, true),
+                        product(1L, "1.00", Category.HOME, true))));
+    }
+
+    @Test
+    void apply_shouldDropManufacturerOnceNoRowUsesIt() {
+        // Arrange
+        CatalogSnapshot original = CatalogSnapshot.empty()
+                .apply(List.of(product(1L, "999.99", Category.ELECTRONICS, true)));
+        CatalogSnapshot removed = original.apply(List.of(product(1L, "999.99", Category.ELECTRONICS, false)));
+        ProductResponse readded = product(2L, "129.99", Category.SPORTS, true);
+        readded.setManufacturer(new String("Manufacturer"));
+
+        // Act
+        CatalogSnapshot updated = removed.apply(List.of(readded));
+
+        // Assert
+        assertSame(readded.getManufacturer(), updated.manufacturerAt(updated.indexOf(2L)));
+        assertNotSame(original.manufacturerAt(0), updated.manufacturerAt(updated.indexOf(2L)));
+    }
+
+    private ProductResponse product(Long id, String price, Category category, boolean active) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal(price))
+                .category(category)
+                .manufacturer("Manufacturer")
+                .sku("SKU-" + id)
+                .stockQuantity(10)
+                .rating(4.5)
+                .ratingCount(10)
+                .active(active)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
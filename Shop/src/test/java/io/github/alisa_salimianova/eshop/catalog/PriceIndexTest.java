@@ -0,0 +1,72 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIndexTest {
+
+    private PriceIndex priceIndex;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.empty().apply(List.of(
+                product(1L, "999.99", Category.ELECTRONICS, true),
+                product(2L, "1199.99", Category.ELECTRONICS, true),
+                product(3L, "49.99", Category.BOOKS, true),
+                product(4L, "129.99", Category.SPORTS, true),
+                product(5L, "49.99", Category.SPORTS, true)));
+        priceIndex = new PriceIndex();
+        priceIndex.onCatalogLoaded(snapshot);
+    }
+
+    @Test
+    void queries_shouldReturnProductsInPriceOrderWithInclusiveBounds() {
+        // Act & Assert
+        assertEquals(List.of(3L, 5L, 4L, 1L), ids(priceIndex.findAtMost(99_999, null).orElseThrow()));
+        assertEquals(List.of(4L, 1L), ids(priceIndex.findBetween(12_999, 99_999, null).orElseThrow()));
+        assertEquals(List.of(3L, 5L), ids(priceIndex.findCheapest(2, null).orElseThrow()));
+        assertEquals(List.of(5L, 4L), ids(priceIndex.findAtMost(20_000, Category.SPORTS).orElseThrow()));
+        assertEquals(List.of(), ids(priceIndex.findBetween(500, 100, null).orElseThrow()));
+    }
+
+    @Test
+    void onProductsChanged_shouldRepositionRepricedAndDropRemovedProducts() {
+        // Arrange
+        List<ProductResponse> changes = List.of(
+                product(2L, "19.99", Category.ELECTRONICS, true),
+                product(4L, "129.99", Category.SPORTS, false),
+                product(6L, "59.99", Category.ELECTRONICS, true));
+
+        // Act
+        priceIndex.onProductsChanged(snapshot.apply(changes), changes);
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 5L, 6L, 1L), ids(priceIndex.findAtMost(Long.MAX_VALUE, null).orElseThrow()));
+        assertEquals(List.of(2L, 6L, 1L), ids(priceIndex.findCheapest(10, Category.ELECTRONICS).orElseThrow()));
+        assertEquals(List.of(5L), ids(priceIndex.findCheapest(10, Category.SPORTS).orElseThrow()));
+        assertEquals(new BigDecimal("19.99"), priceIndex.findCheapest(1, null).orElseThrow().get(0).getPrice());
+    }
+
+    private List<Long> ids(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::getId).toList();
+    }
+
+    private ProductResponse product(Long id, String price, Category category, boolean active) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal(price))
+                .category(category)
+                .sku("SKU-" + id)
+                .active(active)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.alisa_salimianova.eshop.catalog;
+
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopRatedIndexTest {
+
+    private TopRatedIndex topRatedIndex;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.empty().apply(List.of(
+                product(1L, Category.ELECTRONICS, 4.8, 1200, true),
+                product(2L, Category.ELECTRONICS, 4.7, 850, true),
+                product(3L, Category.BOOKS, 4.9, 1500, true),
+                product(4L, Category.SPORTS, 4.8, 2300, true)));
+        topRatedIndex = new TopRatedIndex();
+        topRatedIndex.onCatalogLoaded(snapshot);
+    }
+
+    @Test
+    void top_shouldOrderByRatingThenRatingCount() {
+        // Act & Assert
+        assertEquals(List.of(3L, 4L, 1L), ids(topRatedIndex.top(3, null).orElseThrow()));
+        assertEquals(List.of(1L, 2L), ids(topRatedIndex.top(10, Category.ELECTRONICS).orElseThrow()));
+        assertEquals(List.of(), ids(topRatedIndex.top(10, Category.HOME).orElseThrow()));
+    }
+
+    @Test
+    void onProductsChanged_shouldReRankAndDropInactiveProducts() {
+        // Arrange
+        List<ProductResponse> changes = List.of(
+                product(2L, Category.ELECTRONICS, 5.0, 851, true),
+                product(3L, Category.BOOKS, 4.9, 1500, false));
+
+        // Act
+        topRatedIndex.onProductsChanged(snapshot.apply(changes), changes);
+
+        // Assert
+        assertEquals(List.of(2L, 4L, 1L), ids(topRatedIndex.top(10, null).orElseThrow()));
+        assertEquals(List.of(), ids(topRatedIndex.top(10, Category.BOOKS).orElseThrow()));
+        assertEquals(5.0, topRatedIndex.top(1, null).orElseThrow().get(0).getRating());
+    }
+
+    private List<Long> ids(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::getId).toList();
+    }
+
+    private ProductResponse product(Long id, Category category, double rating, int ratingCount, boolean active) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("9.99"))
+                .category(category)
+                .sku("SKU-" + id)
+                .rating(rating)
+                .ratingCount(ratingCount)
+                .active(active)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.alisa_salimianova.eshop.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderControllerIntegrationTest {
+
+    private static final long POLL_TIMEOUT_MS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void createOrder_shouldAcceptAndFinishInTheBackground() throws Exception {
+        // Arrange
+        Product product = createProduct("PIPELINE-OK", "10.00", 5);
+
+        // Act
+        String location = submitOrder(product.getId(), 2);
+        JsonNode order = awaitFinalStatus(location);
+
+        // Assert
+        assertEquals("PROCESSING", order.path("status").asText());
+        assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void createOrder_shouldRejectWhenStockRunsOut() throws Exception {
+        // Arrange
+        Product product = createProduct("PIPELINE-SCARCE", "10.00", 1);
+
+        // Act
+        JsonNode order = awaitFinalStatus(submitOrder(product.getId(), 2));
+
+        // Assert
+        assertEquals("REJECTED", order.path("status").asText());
+        assertTrue(order.path("failureReason").asText().contains(product.getId().toString()));
+        assertEquals(1, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void createOrder_shouldReturnStockWhenPaymentIsDeclined() throws Exception {
+        // Arrange: above the card payment limit
+        Product product = createProduct("PIPELINE-DECLINED", "20000.00", 3);
+
+        // Act
+        JsonNode order = awaitFinalStatus(submitOrder(product.getId(), 1));
+
+        // Assert
+        assertEquals("REJECTED", order.path("status").asText());
+        assertEquals("Payment declined", order.path("failureReason").asText());
+        assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+
+    private String submitOrder(Long productId, int quantity) throws Exception {
+        CreateOrderRequest.OrderItem item = new CreateOrderRequest.OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(1L);
+        request.setShippingAddress("Test street 1");
+        request.setItems(List.of(item));
+
+        MvcResult started = mockMvc.perform(post("/api/v1/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult accepted = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.data.status").value("ACCEPTED"))
+                .andReturn();
+        return accepted.getResponse().getHeader(HttpHeaders.LOCATION);
+    }
+
+    private JsonNode awaitFinalStatus(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + POLL_TIMEOUT_MS;
+        while (true) {
+            String body = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode order = objectMapper.readTree(body).path("data");
+            String status = order.path("status").asText();
+            if (!status.equals("ACCEPTED") && !status.equals("RESERVED")) {
+                return order;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Order is still " + status + " after " + POLL_TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private Product createProduct(String sku, String price, int stock) {
+        return productRepository.save(Product.builder()
+                .name("Pipeline test " + sku)
+                .price(new BigDecimal(price))
+                .category(Category.HOME)
+                .manufacturer("Pipeline Test")
+                .sku(sku)
+                .stockQuantity(stock)
+                .build());
+    }
+}
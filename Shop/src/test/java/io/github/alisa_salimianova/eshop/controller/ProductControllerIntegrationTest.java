@@ -1,18 +1,39 @@
 package io.github.alisa_salimianova.eshop.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import io.github.alisa_salimianova.eshop.catalog.ProductCatalog;
 import io.github.alisa_salimianova.eshop.dto.request.CreateProductRequest;
+import io.github.alisa_salimianova.eshop.encoding.JacksonProtobufHttpMessageConverter;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.rating.RatingWriteBehind;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +48,15 @@ class ProductControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RatingWriteBehind ratingWriteBehind;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void createProduct_shouldReturnCreatedStatus() throws Exception {
         // Arrange
@@ -62,4 +92,455 @@ class ProductControllerIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getActiveProductsAfter_shouldReturnCursorForNextPage() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/cursor")
+                        .param("size", "2")
+                        .param("sort", "PRICE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.size").value(2))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    void getActiveProductsAfter_shouldRejectMalformedCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/cursor")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void searchProducts_shouldReturnMatchingProductsPaged() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/search")
+                        .param("q", "iPhone pro")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1))
+                .andExpect(jsonPath("$.data.content[0].name").value("iPhone 15 Pro"));
+    }
+
+    @Test
+    void filterProducts_shouldIntersectFacetsAndReturnCounts() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/filter")
+                        .param("manufacturer", "apple")
+                        .param("maxPrice", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1))
+                .andExpect(jsonPath("$.data.content[0].name").value("iPhone 15 Pro"))
+                .andExpect(jsonPath("$.data.facets.category.ELECTRONICS").value(1));
+    }
+
+    @Test
+    void filterProducts_shouldApplyTheRequestedSort() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/filter")
+                        .param("manufacturer", "apple")
+                        .param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].name").value("MacBook Air M2"))
+                .andExpect(jsonPath("$.data.content[1].name").value("iPhone 15 Pro"));
+    }
+
+    @Test
+    void filterProducts_shouldRejectUnsupportedSort() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/filter")
+                        .param("manufacturer", "apple")
+                        .param("sort", "sku"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rateProduct_shouldApplyBufferedRatingsOnFlush() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/v1/products/3/rate").param("rating", "1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/products/3/rate").param("rating", "1"))
+                .andExpect(status().isOk());
+
+        // Act
+        ratingWriteBehind.flush();
+
+        // Assert
+        mockMvc.perform(get("/api/v1/products/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.ratingCount").value(1502))
+                .andExpect(jsonPath("$.data.rating").value((4.9 * 1500 + 2) / 1502));
+    }
+
+    @Test
+    void updateProduct_shouldBeVisibleToReadsImmediately() throws Exception {
+        // Arrange: the snapshot holds the row as stored, and every read path has served it once
+        long id = createProduct("UPDATE-VISIBLE-1", "999.99");
+        productCatalog.syncFromDatabase();
+        String before = mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.price").value(999.99))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/api/v1/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/products/price/under").param("maxPrice", "600"))
+                .andExpect(status().isOk());
+
+        // Act
+        String updated = mockMvc.perform(put("/api/v1/products/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 555.55}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert: no wait for the database poll
+        assertNotEquals(objectMapper.readTree(before).at("/data/updatedAt"),
+                objectMapper.readTree(updated).at("/data/updatedAt"));
+        mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.price").value(555.55));
+        mockMvc.perform(get("/api/v1/products"))
+                .andExpect(jsonPath("$.data[?(@.id == " + id + ")].price").value(555.55));
+        mockMvc.perform(get("/api/v1/products/price/under").param("maxPrice", "600"))
+                .andExpect(jsonPath("$.data[?(@.id == " + id + ")].price").value(555.55));
+    }
+
+    @Test
+    void getProductById_shouldServeRowsPickedUpBySync() throws Exception {
+        // Arrange: cached from the snapshot, then changed in SQL the way stock writes do
+        long id = createProduct("SYNC-VISIBLE-1", "19.99");
+        productCatalog.syncFromDatabase();
+        mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.stockQuantity").value(10));
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 3, updated_at = ? WHERE id = ?",
+                LocalDateTime.now().plusSeconds(1), id);
+
+        // Act
+        productCatalog.syncFromDatabase();
+
+        // Assert
+        mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.stockQuantity").value(3));
+    }
+
+    @Test
+    void getProductById_shouldReturnNotModifiedForMatchingETag() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/v1/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/products/2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAllActiveProducts_shouldReturnNotModifiedForCatalogETag() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void updateProduct_shouldChangeETagsRightAway() throws Exception {
+        // Arrange
+        long id = createProduct("UPDATE-ETAG-1", "20.00");
+        productCatalog.syncFromDatabase();
+        String productETag = mockMvc.perform(get("/api/v1/products/" + id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String catalogETag = mockMvc.perform(get("/api/v1/products"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act
+        mockMvc.perform(put("/api/v1/products/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 25.00}"))
+                .andExpect(status().isOk());
+
+        // Assert: revalidation returns the new body instead of 304
+        mockMvc.perform(get("/api/v1/products/" + id).header(HttpHeaders.IF_NONE_MATCH, productETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(productETag)))
+                .andExpect(jsonPath("$.data.price").value(25.00));
+        mockMvc.perform(get("/api/v1/products").header(HttpHeaders.IF_NONE_MATCH, catalogETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(catalogETag)));
+    }
+
+    @Test
+    void exportActiveProducts_shouldStreamOneJsonObjectPerLine() throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        for (String line : body.split("\n")) {
+            assertTrue(objectMapper.readTree(line).has("sku"));
+        }
+    }
+
+    @Test
+    void importProducts_shouldInsertValidRowsAndReportTheRest() throws Exception {
+        // Arrange
+        String csv = """
+                sku,name,description,price,category,manufacturer,stockQuantity
+                IMPORT-001,Imported kettle,"Steel, 1.7 l",39.90,HOME,Acme,25
+                IPHONE-15-PRO,Duplicate phone,,999.99,ELECTRONICS,Apple,5
+                IMPORT-001,Same SKU again,,10.00,HOME,Acme,1
+                IMPORT-002,Bad price,,abc,HOME,Acme,1
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "products.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/v1/products/import").file(file).param("format", "CSV"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalRows").value(4))
+                .andExpect(jsonPath("$.data.imported").value(1))
+                .andExpect(jsonPath("$.data.failed").value(3))
+                .andExpect(jsonPath("$.data.errors[0].row").value(3))
+                .andExpect(jsonPath("$.data.errors[1].row").value(4))
+                .andExpect(jsonPath("$.data.errors[2].row").value(2));
+        mockMvc.perform(get("/api/v1/products/search").param("q", "kettle"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].sku").value("IMPORT-001"))
+                .andExpect(jsonPath("$.data.content[0].description").value("Steel, 1.7 l"));
+    }
+
+    @Test
+    void bulkUpdateProducts_shouldApplyPatchesAndReportMissingIds() throws Exception {
+        // Arrange
+        String body = """
+                {"patches": [
+                  {"id": 2, "price": 1099.99, "stockQuantity": 7},
+                  {"id": 999999, "price": 1.00}
+                ]}
+                """;
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/products/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.updated").value(1))
+                .andExpect(jsonPath("$.data.notFound[0]").value(999999));
+        mockMvc.perform(get("/api/v1/products/2"))
+                .andExpect(jsonPath("$.data.price").value(1099.99))
+                .andExpect(jsonPath("$.data.stockQuantity").value(7))
+                .andExpect(jsonPath("$.data.name").isNotEmpty());
+    }
+
+    @Test
+    void bulkUpdateProducts_shouldRejectPatchesTogetherWithRule() throws Exception {
+        // Arrange
+        String body = """
+                {"patches": [{"id": 1, "price": 10.00}],
+                 "rule": {"category": "BOOKS", "priceMultiplier": 0.9}}
+                """;
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/products/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkUpdateProducts_shouldRepriceCategoryByRule() throws Exception {
+        // Arrange
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName("Winter jacket");
+        request.setPrice(new BigDecimal("80.00"));
+        request.setCategory(Category.CLOTHING);
+        request.setSku("BULK-JACKET-1");
+        request.setStockQuantity(3);
+        String created = mockMvc.perform(post("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).at("/data/id").asLong();
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rule\": {\"category\": \"CLOTHING\", \"priceMultiplier\": 0.9}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.updated").value(1));
+        mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.price").value(72.00));
+    }
+
+    @Test
+    void bulkUpdateProducts_shouldClampRepricedProductsToThePriceBounds() throws Exception {
+        // Arrange
+        long id = createProduct("BULK-CLAMP-1", "900000.00");
+        jdbcTemplate.update("UPDATE products SET category = 'CLOTHING' WHERE id = ?", id);
+
+        // Act & Assert
+        try {
+            mockMvc.perform(put("/api/v1/products/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rule\": {\"category\": \"CLOTHING\", \"priceMultiplier\": 2}}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/v1/products/" + id))
+                    .andExpect(jsonPath("$.data.price").value(1000000.00));
+        } finally {
+            // Keeps the other CLOTHING rule test at a single product
+            jdbcTemplate.update("UPDATE products SET active = false WHERE id = ?", id);
+        }
+    }
+
+    @Test
+    void bulkUpdateProducts_shouldMoveProductsToAnotherCategory() throws Exception {
+        // Arrange
+        long id = createProduct("BULK-MOVE-1", "15.00");
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patches\": [{\"id\": " + id + ", \"category\": \"SPORTS\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.updated").value(1));
+        mockMvc.perform(get("/api/v1/products/" + id))
+                .andExpect(jsonPath("$.data.category").value("SPORTS"))
+                .andExpect(jsonPath("$.data.price").value(15.00));
+    }
+
+    @Test
+    void getAllActiveProducts_shouldServeGzipFromSerializedCache() throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andReturn();
+
+        // Assert
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        JsonNode envelope = objectMapper.readTree(body);
+        assertTrue(envelope.get("success").asBoolean());
+        assertTrue(envelope.get("data").size() >= 4);
+    }
+
+    @Test
+    void getAllActiveProducts_shouldTreatMalformedQualityAsAbsent() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void getAllActiveProducts_shouldTagGzipVariantSeparately() throws Exception {
+        // Arrange
+        String gzipETag = mockMvc.perform(get("/api/v1/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String identityETag = mockMvc.perform(get("/api/v1/products"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        assertEquals(identityETag.replace("\"", "") + "-gzip", gzipETag.replace("\"", ""));
+        mockMvc.perform(get("/api/v1/products").header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, identityETag));
+        mockMvc.perform(get("/api/v1/products")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipETag));
+        // The identity copy is acceptable to a client that also takes gzip
+        mockMvc.perform(get("/api/v1/products")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, identityETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, identityETag));
+    }
+
+    @Test
+    void getProductById_shouldNegotiateCbor() throws Exception {
+        // Act
+        byte[] body = mockMvc.perform(get("/api/v1/products/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        JsonNode envelope = new CBORMapper().readTree(body);
+        assertTrue(envelope.get("success").asBoolean());
+        assertEquals(1, envelope.at("/data/id").asInt());
+        assertFalse(envelope.has("timestamp"));
+        assertFalse(envelope.has("message"));
+    }
+
+    @Test
+    void getProductById_shouldTagEachEncodingSeparately() throws Exception {
+        // Arrange
+        String jsonETag = mockMvc.perform(get("/api/v1/products/1").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborETag = mockMvc.perform(get("/api/v1/products/1").accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert: a JSON validator does not revalidate the CBOR body
+        assertNotEquals(jsonETag, cborETag);
+        mockMvc.perform(get("/api/v1/products/1")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, cborETag));
+        mockMvc.perform(get("/api/v1/products/1")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllActiveProducts_shouldNegotiateProtobufWithPublishedSchema() throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/products").accept(JacksonProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JacksonProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn();
+        String schemaPath = result.getResponse().getHeader(JacksonProtobufHttpMessageConverter.X_PROTOBUF_SCHEMA_HEADER);
+        String proto = mockMvc.perform(get(schemaPath))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert: decodable with nothing but the published .proto
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(proto);
+        JsonNode envelope = new ProtobufMapper().readerFor(JsonNode.class).with(schema)
+                .readValue(result.getResponse().getContentAsByteArray());
+        assertTrue(envelope.get("success").asBoolean());
+        assertTrue(envelope.get("data").size() >= 4);
+        new BigDecimal(envelope.at("/data/0/price").asText());
+    }
+
+    private long createProduct(String sku, String price) throws Exception {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName("Product " + sku);
+        request.setPrice(new BigDecimal(price));
+        request.setCategory(Category.HOME);
+        request.setSku(sku);
+        request.setStockQuantity(10);
+        String created = mockMvc.perform(post("/api/v1/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).at("/data/id").asLong();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.alisa_salimianova.eshop.facet;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetBitmapsTest {
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.empty().apply(List.of(
+            product(1L, "999.99", Category.ELECTRONICS, "Apple", 4.8, true),
+            product(2L, "1199.99", Category.ELECTRONICS, "Apple", 4.7, true),
+            product(3L, "49.99", Category.BOOKS, "Addison-Wesley", 4.9, true),
+            product(4L, "129.99", Category.SPORTS, "Nike", 3.5, true)));
+
+    @Test
+    void intersections_shouldAnswerCombinedFiltersWithExactBounds() {
+        // Arrange
+        FacetBitmaps facets = FacetBitmaps.build(snapshot);
+
+        // Act
+        RoaringBitmap result = RoaringBitmap.and(facets.manufacturer("apple"),
+                facets.priceAtMost(CatalogSnapshot.toCents(new BigDecimal("999.99"))));
+
+        // Assert
+        assertArrayEquals(new int[]{1}, result.toArray());
+        assertArrayEquals(new int[]{1, 3}, facets.ratingAtLeast(4.8).toArray());
+        assertArrayEquals(new int[]{3}, facets.priceAtMost(4_999).toArray());
+    }
+
+    @Test
+    void counts_shouldCountEachDimensionWithinResult() {
+        // Arrange
+        FacetBitmaps facets = FacetBitmaps.build(snapshot);
+
+        // Act
+        Map<String, Map<String, Long>> counts = facets.counts(facets.ratingAtLeast(4.0));
+
+        // Assert
+        assertEquals(Map.of("ELECTRONICS", 2L, "BOOKS", 1L), counts.get("category"));
+        assertEquals(Map.of("Apple", 2L, "Addison-Wesley", 1L), counts.get("manufacturer"));
+        assertEquals(Map.of("4-5", 3L), counts.get("rating"));
+        assertEquals(Map.of("0-50", 1L, "500-1000", 1L, "1000+", 1L), counts.get("price"));
+    }
+
+    @Test
+    void withChanges_shouldMoveProductsBetweenBucketsWithoutTouchingOriginal() {
+        // Arrange
+        FacetBitmaps original = FacetBitmaps.build(snapshot);
+        List<ProductResponse> changes = List.of(
+                product(1L, "899.99", Category.ELECTRONICS, "Samsung", 4.8, true),
+                product(4L, "129.99", Category.SPORTS, "Nike", 3.5, false));
+
+        // Act
+        FacetBitmaps updated = original.withChanges(snapshot.apply(changes), changes);
+
+        // Assert
+        assertArrayEquals(new int[]{2}, updated.manufacturer("Apple").toArray());
+        assertArrayEquals(new int[]{1}, updated.manufacturer("Samsung").toArray());
+        assertTrue(updated.category(Category.SPORTS).isEmpty());
+        assertEquals(3, updated.all().getCardinality());
+        assertArrayEquals(new int[]{1, 2}, original.manufacturer("Apple").toArray());
+        assertArrayEquals(new int[]{4}, original.category(Category.SPORTS).toArray());
+    }
+
+    private ProductResponse product(Long id, String price, Category category, String manufacturer,
+                                    double rating, boolean active) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal(price))
+                .category(category)
+                .manufacturer(manufacturer)
+                .sku("SKU-" + id)
+                .rating(rating)
+                .active(active)
+                .build();
+    }
+}
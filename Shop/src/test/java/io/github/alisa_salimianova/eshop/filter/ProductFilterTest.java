@@ -0,0 +1,65 @@
+package io.github.alisa_salimianova.eshop.filter;
+
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductFilterTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ProductFilter filter = ProductFilter.and(List.of(
+            new ProductFilter.CategoryIs(Category.ELECTRONICS),
+            new ProductFilter.ManufacturerIs("apple"),
+            new ProductFilter.MinRating(4.5),
+            new ProductFilter.MaxPrice(new BigDecimal("1000.00"), 100_000)));
+
+    @BeforeEach
+    void setUp() {
+        productRepository.saveAll(List.of(
+                product("iPhone", "999.99", Category.ELECTRONICS, "Apple", 4.8),
+                product("MacBook", "1199.99", Category.ELECTRONICS, "Apple", 4.7),
+                product("iPod", "199.99", Category.ELECTRONICS, "Apple", 3.9),
+                product("Galaxy", "899.99", Category.ELECTRONICS, "Samsung", 4.6),
+                product("Book", "49.99", Category.BOOKS, "Apple", 4.9)));
+    }
+
+    @Test
+    void toSpecification_shouldPushWholePredicateDownWithPagination() {
+        // Act
+        Page<Product> page = productRepository.findAll(filter.toSpecification(),
+                PageRequest.of(0, 10, Sort.by("id")));
+
+        // Assert
+        assertEquals(1, page.getTotalElements());
+        assertEquals("iPhone", page.getContent().get(0).getName());
+    }
+
+    private Product product(String name, String price, Category category, String manufacturer, double rating) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .category(category)
+                .manufacturer(manufacturer)
+                .sku("SKU-" + name)
+                .stockQuantity(10)
+                .rating(rating)
+                .build();
+    }
+}
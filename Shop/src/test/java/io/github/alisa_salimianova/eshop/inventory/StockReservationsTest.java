@@ -0,0 +1,171 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.exception.InsufficientStockException;
+import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StockReservationsTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private InventoryProperties properties;
+    private StockReservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        properties = new InventoryProperties();
+        properties.getReservations().setEnabled(true);
+        reservations = new StockReservations(jdbcTemplate, properties, new SyncTaskExecutor());
+        reservations.reset(1L, 5);
+        reservations.reset(2L, 1);
+    }
+
+    @Test
+    void hold_shouldNotOversellUnderConcurrentRequests() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<StockHold>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(() -> reservations.hold(Map.of(1L, 1)));
+        }
+
+        // Act
+        int held = 0;
+        try {
+            for (Future<StockHold> result : executor.invokeAll(requests)) {
+                try {
+                    result.get();
+                    held++;
+                } catch (Exception e) {
+                    assertInstanceOf(InsufficientStockException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(5, held);
+        assertEquals(0, reservations.available(1L));
+    }
+
+    @Test
+    void hold_shouldTakeNothingWhenAnyItemIsShort() {
+        // Act
+        InsufficientStockException failure = assertThrows(InsufficientStockException.class,
+                () -> reservations.hold(Map.of(1L, 2, 2L, 3, 3L, 1)));
+
+        // Assert
+        assertEquals(List.of(2L, 3L), failure.getProductIds());
+        assertEquals(5, reservations.available(1L));
+        assertEquals(1, reservations.available(2L));
+    }
+
+    @Test
+    void releaseExpiredHolds_shouldReturnStock() {
+        // Arrange
+        properties.getReservations().setHoldTtl(Duration.ZERO);
+        StockHold hold = reservations.hold(Map.of(1L, 3));
+
+        // Act
+        reservations.releaseExpiredHolds();
+
+        // Assert
+        assertEquals(5, reservations.available(1L));
+        assertThrows(ResourceNotFoundException.class, () -> reservations.claim(hold.id(), hold.items()));
+    }
+
+    @Test
+    void claim_shouldKeepTheHoldWhenItemsDoNotMatch() {
+        // Arrange
+        StockHold hold = reservations.hold(Map.of(1L, 2));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> reservations.claim(hold.id(), Map.of(1L, 3)));
+        assertEquals(hold, reservations.claim(hold.id(), Map.of(1L, 2)));
+        assertEquals(3, reservations.available(1L));
+    }
+
+    @Test
+    void reset_shouldKeepUnitsThatAreStillHeld() {
+        // Arrange
+        reservations.hold(Map.of(1L, 2));
+
+        // Act: a restock to 10 while two units sit in a cart
+        reservations.reset(1L, 10);
+
+        // Assert
+        assertEquals(8, reservations.available(1L));
+    }
+
+    @Test
+    void onProductsChanged_shouldSkipChangesThatKeepTheStock() {
+        // Arrange
+        CatalogSnapshot loaded = CatalogSnapshot.empty().apply(List.of(product(1L, 5)));
+        reservations.onCatalogLoaded(loaded);
+        ProductResponse rated = product(1L, 5);
+        rated.setRating(3.0);
+
+        // Act
+        reservations.onProductsChanged(loaded.apply(List.of(rated)), List.of(rated));
+
+        // Assert
+        verify(jdbcTemplate, never()).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void refresh_shouldQueryLargeProductListsInChunks() {
+        // Arrange
+        List<Long> ids = LongStream.rangeClosed(1, 2 * StockReservations.REFRESH_CHUNK_SIZE + 1).boxed().toList();
+
+        // Act
+        reservations.refresh(ids);
+
+        // Assert
+        verify(jdbcTemplate, times(3)).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private ProductResponse product(Long id, int stock) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("10.00"))
+                .category(Category.BOOKS)
+                .stockQuantity(stock)
+                .rating(4.5)
+                .ratingCount(10)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
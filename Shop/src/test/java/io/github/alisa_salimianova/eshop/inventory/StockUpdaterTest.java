@@ -0,0 +1,85 @@
+package io.github.alisa_salimianova.eshop.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StockUpdaterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final Connection connection = mock(Connection.class);
+    private final Savepoint savepoint = mock(Savepoint.class);
+    private final StockUpdater stockUpdater = new StockUpdater(jdbcTemplate, mock(ShardedStock.class));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(call -> call.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void decrement_shouldRedoRowsOneByOneWhenTheDriverGivesNoCounts() throws Exception {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO}});
+        when(jdbcTemplate.update(anyString(), eq(2), any(), eq(1L), eq(2))).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq(5), any(), eq(2L), eq(5))).thenReturn(0);
+
+        // Act
+        List<Long> failed = stockUpdater.decrement(Map.of(1L, 2, 2L, 5));
+        List<Long> failedLater = stockUpdater.decrement(Map.of(1L, 2));
+
+        // Assert: the batch is undone rather than applied twice, and the driver is not asked again
+        assertEquals(List.of(2L), failed);
+        assertEquals(List.of(), failedLater);
+        verify(connection).rollback(savepoint);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void decrement_shouldKeepBatchingOnceTheDriverReportsExactCounts() throws Exception {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}}, new int[][]{{1}});
+
+        // Act
+        List<Long> failed = stockUpdater.decrement(Map.of(1L, 2, 2L, 5));
+        List<Long> failedLater = stockUpdater.decrement(Map.of(1L, 2));
+
+        // Assert
+        assertEquals(List.of(2L), failed);
+        assertEquals(List.of(), failedLater);
+        verify(connection).releaseSavepoint(savepoint);
+        verify(connection, times(1)).setSavepoint();
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.alisa_salimianova.eshop.payment;
+
+import io.github.alisa_salimianova.eshop.config.PaymentProperties;
+import io.github.alisa_salimianova.eshop.service.interfaces.PaymentStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoublePredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuardedPaymentStrategyTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Test
+    void processPayment_shouldReportUnknownOutcomeAndInterruptAProviderThatTimesOut() throws Exception {
+        // Arrange: only the first call hangs
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        GuardedPaymentStrategy strategy = guarded(settings(Duration.ofMillis(50), 1, 5), amount -> {
+            if (calls.incrementAndGet() > 1) {
+                return true;
+            }
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        });
+
+        // Act
+        PaymentResult result = strategy.processPayment(BigDecimal.TEN).get(1, TimeUnit.SECONDS);
+
+        // Assert: the only permit comes back once the interrupted call returns
+        assertEquals(PaymentResult.unknown("timed out"), result);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        PaymentResult next = strategy.processPayment(BigDecimal.TEN).get(1, TimeUnit.SECONDS);
+        for (int attempt = 0; !next.isApproved() && attempt < 20; attempt++) {
+            Thread.sleep(10);
+            next = strategy.processPayment(BigDecimal.TEN).get(1, TimeUnit.SECONDS);
+        }
+        assertTrue(next.isApproved());
+    }
+
+    @Test
+    void processPayment_shouldRejectCallsAboveTheBulkheadLimit() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        GuardedPaymentStrategy strategy = guarded(settings(Duration.ofSeconds(5), 1, 5), amount -> {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+        CompletableFuture<PaymentResult> first = strategy.processPayment(BigDecimal.TEN);
+
+        // Act
+        PaymentResult second = strategy.processPayment(BigDecimal.TEN).getNow(null);
+        release.countDown();
+
+        // Assert
+        assertNotNull(second, "a rejected call must not wait");
+        assertEquals(PaymentResult.Status.FAILED, second.status());
+        assertTrue(first.get(1, TimeUnit.SECONDS).isApproved());
+    }
+
+    @Test
+    void processPayment_shouldStopCallingAFailingProviderAndKeepDeclinesApart() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        GuardedPaymentStrategy strategy = guarded(settings(Duration.ofSeconds(1), 4, 2), amount -> {
+            calls.incrementAndGet();
+            if (amount > 100) {
+                throw new IllegalStateException("provider is down");
+            }
+            return false;
+        });
+
+        // Act & Assert: a decline is an answer, not a provider failure
+        assertEquals(PaymentResult.declined(), strategy.processPayment(BigDecimal.ONE).get(1, TimeUnit.SECONDS));
+        strategy.processPayment(BigDecimal.valueOf(500)).get(1, TimeUnit.SECONDS);
+        strategy.processPayment(BigDecimal.valueOf(500)).get(1, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.OPEN, strategy.circuitState());
+
+        PaymentResult rejected = strategy.processPayment(BigDecimal.ONE).get(1, TimeUnit.SECONDS);
+        assertEquals(PaymentResult.Status.FAILED, rejected.status());
+        assertEquals(3, calls.get());
+    }
+
+    private GuardedPaymentStrategy guarded(PaymentProperties.Provider settings, DoublePredicate provider) {
+        return new GuardedPaymentStrategy(new PaymentStrategy() {
+            @Override
+            public boolean processPayment(double amount) {
+                return provider.test(amount);
+            }
+
+            @Override
+            public String getPaymentMethodName() {
+                return "Test";
+            }
+        }, settings, executor, timer);
+    }
+
+    private static PaymentProperties.Provider settings(Duration timeout, int maxConcurrent, int failureThreshold) {
+        PaymentProperties.Provider settings = new PaymentProperties.Provider();
+        settings.setTimeout(timeout);
+        settings.setMaxConcurrent(maxConcurrent);
+        settings.setFailureThreshold(failureThreshold);
+        settings.setOpenDuration(Duration.ofMinutes(1));
+        return settings;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.alisa_salimianova.eshop.rating;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingCountersTest {
+
+    @Test
+    void drain_shouldNotLoseConcurrentRatings() throws InterruptedException {
+        // Arrange
+        RatingCounters counters = new RatingCounters(8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counters.add(1L, i % 5 + 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        List<RatingCounters.RatingDelta> deltas = counters.drain();
+
+        // Assert
+        assertEquals(List.of(new RatingCounters.RatingDelta(1L, 80_000, 240_000)), deltas);
+        assertTrue(counters.drain().isEmpty());
+    }
+
+    @Test
+    void restore_shouldReturnDeltasForTheNextDrain() {
+        // Arrange
+        RatingCounters counters = new RatingCounters(4);
+        counters.add(1L, 5);
+        counters.add(2L, 3);
+        List<RatingCounters.RatingDelta> failed = counters.drain();
+
+        // Act
+        counters.add(1L, 4);
+        counters.restore(failed);
+
+        // Assert
+        assertEquals(List.of(new RatingCounters.RatingDelta(1L, 2, 9), new RatingCounters.RatingDelta(2L, 1, 3)),
+                counters.drain().stream().sorted((a, b) -> Long.compare(a.productId(), b.productId())).toList());
+    }
+}
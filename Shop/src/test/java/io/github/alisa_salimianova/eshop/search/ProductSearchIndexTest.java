@@ -0,0 +1,99 @@
+package io.github.alisa_salimianova.eshop.search;
+
+import io.github.alisa_salimianova.eshop.catalog.CatalogSnapshot;
+import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.onCatalogLoaded(CatalogSnapshot.empty().apply(List.of(
+                product(1L, "iPhone 15 Pro", "Apple", "Смартфон с камерой 48 Мп", true),
+                product(2L, "MacBook Pro", "Apple", "Ноутбук для работы", true),
+                product(3L, "Galaxy S24", "Samsung", "Smartphone with a Pro grade camera", true))));
+    }
+
+    @Test
+    void search_shouldRequireAllTermsAndFoldCase() {
+        // Act
+        SearchHits hits = index.search("APPLE pro", 0, 10);
+
+        // Assert
+        assertEquals(2, hits.total());
+        assertArrayEquals(new long[]{1L, 2L}, sortedIds(hits));
+        assertEquals(1, index.search("смартфон камерой", 0, 10).total());
+        assertEquals(0, index.search("apple galaxy", 0, 10).total());
+    }
+
+    @Test
+    void search_shouldRankNameMatchesAboveDescriptionMatches() {
+        // Act
+        SearchHits hits = index.search("pro", 0, 10);
+
+        // Assert
+        assertEquals(3, hits.total());
+        assertEquals(3L, hits.productIds()[2]);
+        assertArrayEquals(new long[]{hits.productIds()[1]}, index.search("pro", 1, 1).productIds());
+    }
+
+    @Test
+    void onProductsChanged_shouldReplaceAndRemoveDocuments() {
+        // Act
+        index.onProductsChanged(null, List.of(
+                product(1L, "iPhone 16", "Apple", "Новая модель", true),
+                product(2L, "MacBook Pro", "Apple", "Ноутбук для работы", false)));
+
+        // Assert
+        assertEquals(0, index.search("apple pro", 0, 10).total());
+        assertArrayEquals(new long[]{1L}, index.search("iphone 16", 0, 10).productIds());
+        assertEquals(0, index.search("macbook", 0, 10).total());
+    }
+
+    @Test
+    void onProductsChanged_shouldReuseSlotsOfRemovedDocuments() {
+        // Act: every change retires one product and lists another
+        long retired = 2L;
+        for (long id = 4; id < 104; id++) {
+            index.onProductsChanged(null, List.of(
+                    product(retired, "Retired", "Apple", "Снят с продажи", false),
+                    product(id, "Galaxy Tab " + id, "Samsung", "Планшет", true)));
+            retired = id;
+        }
+
+        // Assert: the reused slot sits below product 3 and still intersects correctly
+        assertEquals(3, index.allocatedDocs());
+        assertArrayEquals(new long[]{3L, 103L}, sortedIds(index.search("samsung galaxy", 0, 10)));
+        assertArrayEquals(new long[]{1L}, index.search("apple", 0, 10).productIds());
+    }
+
+    private long[] sortedIds(SearchHits hits) {
+        long[] ids = hits.productIds().clone();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private ProductResponse product(Long id, String name, String manufacturer, String description, boolean active) {
+        return ProductResponse.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .price(new BigDecimal("9.99"))
+                .category(Category.ELECTRONICS)
+                .manufacturer(manufacturer)
+                .sku("SKU-" + id)
+                .active(active)
+                .build();
+    }
+}
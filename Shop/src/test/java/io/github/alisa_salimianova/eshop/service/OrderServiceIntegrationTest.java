@@ -0,0 +1,214 @@
+package io.github.alisa_salimianova.eshop.service;
+
+import io.github.alisa_salimianova.eshop.config.InventoryProperties;
+import io.github.alisa_salimianova.eshop.dto.request.CreateOrderRequest;
+import io.github.alisa_salimianova.eshop.dto.response.OrderResponse;
+import io.github.alisa_salimianova.eshop.exception.InsufficientStockException;
+import io.github.alisa_salimianova.eshop.inventory.ShardedStock;
+import io.github.alisa_salimianova.eshop.inventory.StockRebalancer;
+import io.github.alisa_salimianova.eshop.inventory.StockReconciler;
+import io.github.alisa_salimianova.eshop.inventory.StockReservations;
+import io.github.alisa_salimianova.eshop.model.entity.Product;
+import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import io.github.alisa_salimianova.eshop.service.interfaces.DeliveryStrategy;
+import io.github.alisa_salimianova.eshop.strategy.delivery.StandardDeliveryStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceIntegrationTest {
+
+    private static final DeliveryStrategy DELIVERY = new StandardDeliveryStrategy();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryProperties inventoryProperties;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private StockReconciler stockReconciler;
+
+    @Autowired
+    private StockRebalancer stockRebalancer;
+
+    @Autowired
+    private ShardedStock shardedStock;
+
+    @Test
+    void reserveStock_shouldReportItemsWithoutStockAndKeepTheOthers() {
+        // Arrange
+        Long plenty = createProduct("STOCK-PLENTY", 10).getId();
+        Long scarce = createProduct("STOCK-SCARCE", 1).getId();
+
+        // Act
+        InsufficientStockException failure = assertThrows(InsufficientStockException.class,
+                () -> placeOrder(Map.of(plenty, 2, scarce, 3)));
+
+        // Assert: the decrement of the available item was rolled back with the reservation
+        assertEquals(List.of(scarce), failure.getProductIds());
+        assertEquals(10, productRepository.findById(plenty).orElseThrow().getStockQuantity());
+        assertEquals(1, productRepository.findById(scarce).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void reserveStock_shouldNotOversellUnderConcurrentCheckouts() throws Exception {
+        // Arrange
+        Long id = createProduct("STOCK-HOT", 5).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<OrderResponse>> checkouts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            checkouts.add(() -> placeOrder(Map.of(id, 1)));
+        }
+
+        // Act
+        int placed = 0;
+        int rejected = 0;
+        try {
+            for (Future<OrderResponse> result : executor.invokeAll(checkouts)) {
+                try {
+                    result.get();
+                    placed++;
+                } catch (Exception e) {
+                    assertInstanceOf(InsufficientStockException.class, e.getCause());
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(5, placed);
+        assertEquals(15, rejected);
+        assertEquals(0, productRepository.findById(id).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void cancelOrder_shouldRestoreStockOnlyOnce() {
+        // Arrange
+        Long id = createProduct("STOCK-CANCEL", 4).getId();
+        OrderResponse order = placeOrder(Map.of(id, 3));
+
+        // Act
+        orderService.cancelOrder(order.getId(), 1L);
+
+        // Assert
+        assertEquals(4, productRepository.findById(id).orElseThrow().getStockQuantity());
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(order.getId(), 1L));
+        assertEquals(4, productRepository.findById(id).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void reserveStock_shouldSellFromTheLedgerAndReconcileLater() {
+        // Arrange: the ledger is switched on for this test only, in the shared context
+        Long id = createProduct("STOCK-LEDGER", 5).getId();
+        inventoryProperties.getReservations().setEnabled(true);
+        try {
+            stockReservations.rebuild();
+
+            // Act
+            OrderResponse first = placeOrder(Map.of(id, 2));
+            placeOrder(Map.of(id, 2));
+            assertThrows(InsufficientStockException.class, () -> placeOrder(Map.of(id, 2)));
+            orderService.cancelOrder(first.getId(), 1L);
+            stockReconciler.reconcile();
+
+            // Assert: the cancelled sale comes back whether or not it had been reconciled
+            assertEquals(3, stockReservations.available(id));
+            assertEquals(3, productRepository.findById(id).orElseThrow().getStockQuantity());
+        } finally {
+            inventoryProperties.getReservations().setEnabled(false);
+        }
+    }
+
+    @Test
+    void reserveStock_shouldSellShardedStockAcrossBuckets() throws Exception {
+        // Arrange: a threshold no other test product reaches, so only this one is split
+        Long id = createProduct("STOCK-SHARDED", 10_000).getId();
+        InventoryProperties.Sharding sharding = inventoryProperties.getSharding();
+        sharding.setEnabled(true);
+        sharding.setMinStock(10_000);
+        try {
+            stockRebalancer.rebalance();
+            assertEquals(Map.of(id, 10_000), shardedStock.stock(List.of(id)));
+
+            // Act: concurrent small orders, one larger than any bucket, one larger than the stock
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Callable<OrderResponse>> checkouts = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                checkouts.add(() -> placeOrder(Map.of(id, 50)));
+            }
+            List<OrderResponse> orders = new ArrayList<>();
+            try {
+                for (Future<OrderResponse> result : executor.invokeAll(checkouts)) {
+                    orders.add(result.get());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            placeOrder(Map.of(id, 2_000));
+            assertThrows(InsufficientStockException.class, () -> placeOrder(Map.of(id, 10_000)));
+            orderService.cancelOrder(orders.get(0).getId(), 1L);
+            stockRebalancer.rebalance();
+
+            // Assert: the product row carries the rolled-up sum of its buckets
+            assertEquals(Map.of(id, 7_050), shardedStock.stock(List.of(id)));
+            assertEquals(7_050, productRepository.findById(id).orElseThrow().getStockQuantity());
+        } finally {
+            sharding.setEnabled(false);
+            sharding.setMinStock(100);
+        }
+    }
+
+    private OrderResponse placeOrder(Map<Long, Integer> quantities) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(1L);
+        request.setShippingAddress("Test street 1");
+        List<CreateOrderRequest.OrderItem> items = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            CreateOrderRequest.OrderItem item = new CreateOrderRequest.OrderItem();
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            items.add(item);
+        });
+        request.setItems(items);
+        // The pipeline stages without payment: accept, reserve, then complete as if paid
+        Long orderId = orderService.acceptOrder(request, "Test", DELIVERY).getId();
+        assertTrue(orderService.reserveStock(orderId, null));
+        orderService.completeOrder(orderId);
+        return orderService.getOrder(orderId);
+    }
+
+    private Product createProduct(String sku, int stock) {
+        return productRepository.save(Product.builder()
+                .name("Stock test " + sku)
+                .price(new BigDecimal("10.00"))
+                .category(Category.HOME)
+                .manufacturer("Stock Test")
+                .sku(sku)
+                .stockQuantity(stock)
+                .build());
+    }
+}
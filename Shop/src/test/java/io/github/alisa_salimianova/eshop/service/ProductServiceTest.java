@@ -1,20 +1,31 @@
 package io.github.alisa_salimianova.eshop.service;
 
+import io.github.alisa_salimianova.eshop.cache.ProductCacheInvalidator;
+import io.github.alisa_salimianova.eshop.cache.SingleFlight;
+import io.github.alisa_salimianova.eshop.catalog.PriceIndex;
+import io.github.alisa_salimianova.eshop.catalog.ProductCatalog;
 import io.github.alisa_salimianova.eshop.dto.request.CreateProductRequest;
+import io.github.alisa_salimianova.eshop.dto.request.UpdateProductRequest;
 import io.github.alisa_salimianova.eshop.dto.response.ProductResponse;
 import io.github.alisa_salimianova.eshop.exception.ResourceNotFoundException;
 import io.github.alisa_salimianova.eshop.mapper.ProductMapper;
 import io.github.alisa_salimianova.eshop.model.entity.Product;
 import io.github.alisa_salimianova.eshop.model.enums.Category;
+import io.github.alisa_salimianova.eshop.rating.RatingWriteBehind;
 import io.github.alisa_salimianova.eshop.repository.ProductRepository;
+import io.github.alisa_salimianova.eshop.search.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +41,27 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ProductCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private PriceIndex priceIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private RatingWriteBehind ratingWriteBehind;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SingleFlight productLoads = new SingleFlight("products", Duration.ofSeconds(1), new SimpleMeterRegistry());
+
     @InjectMocks
     private ProductService productService;
 
@@ -110,4 +142,26 @@ class ProductServiceTest {
         assertNotNull(result);
         verify(productRepository, times(1)).save(any(Product.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateProduct_shouldEvictOnlyAffectedCacheKeys() {
+        // Arrange
+        UpdateProductRequest request = new UpdateProductRequest();
+        request.setActive(false);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        doAnswer(invocation -> {
+            testProduct.setActive(false);
+            return null;
+        }).when(productMapper).updateEntity(testProduct, request);
+        when(productRepository.saveAndFlush(testProduct)).thenReturn(testProduct);
+        when(productMapper.toResponse(testProduct)).thenReturn(testProductResponse);
+
+        // Act
+        productService.updateProduct(1L, request);
+
+        // Assert
+        verify(cacheInvalidator).productChanged(1L, true, false);
+        verifyNoMoreInteractions(cacheInvalidator);
+    }
+}